@@ -1,6 +1,9 @@
 package se.xell.util.math;
 
 import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleUnaryOperator;
 
 import se.xell.junky.Function1;
 
@@ -8,6 +11,15 @@ import se.xell.junky.Function1;
  * A mathematics class with slightly more advanced features than
  * java.lang.Math. All methods in this class are static
  * and the class cannot be instantiated. 
+ * <br></br><br></br>
+ * 
+ * The integrate and derive methods are overloaded for 
+ * {@link DoubleUnaryOperator}, {@link Function1} and {@link RealFunction}.
+ * A lambda is compatible with all three, but since RealFunction extends 
+ * both of the others its overload is the most specific one, so lambdas 
+ * always resolve to it and are evaluated without boxing. javac still 
+ * warns that the other two overloads could be ambiguous, which is why 
+ * they suppress "overloads".
  * 
  * @author Tobias Axell
  */
@@ -38,14 +50,15 @@ public final class AMath {
 	 * 				higher precision.
 	 * @return An approximation of the integral of <b>f</b> from <b>a</b> to <b>b</b>.
 	 */
-	public static double integrate(Function1<Double, Double> f, double a, double b, int N) {
+	@SuppressWarnings("overloads")
+	public static double integrate(DoubleUnaryOperator f, double a, double b, int N) {
 		int	s      = (int)Math.ceil((b - a) * N);	// no of steps
 		double h   = (b - a) / s;              	    // step size
-		double sum = 0.5 * (f.f(a) + f.f(b));       // area
+		double sum = 0.5 * (f.applyAsDouble(a) + f.applyAsDouble(b));	// area
 		
 		for (int i = 1; i < s; i++) {
 			double x = a + h * i;
-			sum += f.f(x);
+			sum += f.applyAsDouble(x);
 		}
 		return sum * h;
 	}
@@ -59,10 +72,143 @@ public final class AMath {
 	 * @param b - The end value of the interval to integrate.
 	 * @return An approximation of the integral of <b>f</b> from <b>a</b> to <b>b</b>.
 	 */
-	public static double integrate(Function1<Double, Double> f, double a, double b) {
+	@SuppressWarnings("overloads")
+	public static double integrate(DoubleUnaryOperator f, double a, double b) {
 		return integrate(f, a, b, STANDARD_INTEGRAL_PRECISION);
 	}
 	
+	/**
+	 * Calculates an approximate integral the function <b>f</b> on the closed interval
+	 * [<b>a</b>, <b>b</b>] with precision N using the trapezodial rule.
+	 * 
+	 * @param f - The function to integrate.
+	 * @param a - The start value of the interval to integrate.
+	 * @param b - The end value of the interval to integrate.
+	 * @param N - The precision to calculate with. Higher N gives
+	 * 				higher precision.
+	 * @return An approximation of the integral of <b>f</b> from <b>a</b> to <b>b</b>.
+	 */
+	public static double integrate(RealFunction f, double a, double b, int N) {
+		return integrate((DoubleUnaryOperator)f, a, b, N);
+	}
+	
+	/**
+	 * Calculates an approximate integral the function <b>f</b> on the closed interval
+	 * [<b>a</b>, <b>b</b>] using the trapezodial rule.
+	 * 
+	 * @param f - The function to integrate.
+	 * @param a - The start value of the interval to integrate.
+	 * @param b - The end value of the interval to integrate.
+	 * @return An approximation of the integral of <b>f</b> from <b>a</b> to <b>b</b>.
+	 */
+	public static double integrate(RealFunction f, double a, double b) {
+		return integrate((DoubleUnaryOperator)f, a, b, STANDARD_INTEGRAL_PRECISION);
+	}
+	
+	/**
+	 * Calculates an approximate integral the function <b>f</b> on the closed interval
+	 * [<b>a</b>, <b>b</b>] with precision N using the trapezodial rule.
+	 * 
+	 * @param f - The function to integrate.
+	 * @param a - The start value of the interval to integrate.
+	 * @param b - The end value of the interval to integrate.
+	 * @param N - The precision to calculate with. Higher N gives
+	 * 				higher precision.
+	 * @return An approximation of the integral of <b>f</b> from <b>a</b> to <b>b</b>.
+	 */
+	@SuppressWarnings("overloads")
+	public static double integrate(Function1<Double, Double> f, double a, double b, int N) {
+		return integrate(RealFunction.of(f), a, b, N);
+	}
+	
+	/**
+	 * Calculates an approximate integral the function <b>f</b> on the closed interval
+	 * [<b>a</b>, <b>b</b>] using the trapezodial rule.
+	 * 
+	 * @param f - The function to integrate.
+	 * @param a - The start value of the interval to integrate.
+	 * @param b - The end value of the interval to integrate.
+	 * @return An approximation of the integral of <b>f</b> from <b>a</b> to <b>b</b>.
+	 */
+	@SuppressWarnings("overloads")
+	public static double integrate(Function1<Double, Double> f, double a, double b) {
+		return integrate(RealFunction.of(f), a, b, STANDARD_INTEGRAL_PRECISION);
+	}
+	
+	/**
+	 * Calculates an approximate integral the function <b>f</b> on the closed interval
+	 * [<b>a</b>, <b>b</b>] with precision N using the trapezodial rule, evaluating
+	 * <b>f</b> in parallel on a given fork/join pool.<br></br><br></br>
+	 * 
+	 * The interval is split into subintervals whose partial sums are combined 
+	 * using compensated summation. The split only depends on <b>a</b>, <b>b</b> 
+	 * and <b>N</b>, so the result is the same regardless of the number of threads 
+	 * in <b>pool</b>. This is mainly worth it when <b>f</b> is expensive to 
+	 * evaluate. <b>f</b> must be safe to call from several threads at once.
+	 * <br></br><br></br>
+	 * 
+	 * <b>f</b> is only evaluated inside [<b>a</b>, <b>b</b>]. If <b>b</b> is 
+	 * less than <b>a</b> the result is the negated integral from <b>b</b> to 
+	 * <b>a</b>, and if they are equal it is 0.
+	 * 
+	 * @param f - The function to integrate.
+	 * @param a - The start value of the interval to integrate.
+	 * @param b - The end value of the interval to integrate.
+	 * @param N - The precision to calculate with. Higher N gives
+	 * 				higher precision.
+	 * @param pool - The pool to evaluate <b>f</b> on.
+	 * @return An approximation of the integral of <b>f</b> from <b>a</b> to <b>b</b>.
+	 */
+	public static double integrateParallel(DoubleUnaryOperator f, double a, double b, int N, ForkJoinPool pool) {
+		if(f == null || pool == null){
+			throw new NullPointerException();
+		}
+		if(a == b){
+			return 0;
+		}
+		if(b < a){
+			return -integrateParallel(f, b, a, N, pool);
+		}
+		int	s      = (int)Math.ceil((b - a) * N);	// no of steps
+		double h   = (b - a) / s;              	    // step size
+		
+		ParallelIntegrator task = new ParallelIntegrator(f, a, b, h, s, 0, s + 1);
+		pool.invoke(task);
+		return task.result() * h;
+	}
+	
+	/**
+	 * Calculates an approximate integral the function <b>f</b> on the closed interval
+	 * [<b>a</b>, <b>b</b>] with precision N using the trapezodial rule, evaluating
+	 * <b>f</b> in parallel on the common fork/join pool.
+	 * 
+	 * @param f - The function to integrate.
+	 * @param a - The start value of the interval to integrate.
+	 * @param b - The end value of the interval to integrate.
+	 * @param N - The precision to calculate with. Higher N gives
+	 * 				higher precision.
+	 * @return An approximation of the integral of <b>f</b> from <b>a</b> to <b>b</b>.
+	 * @see #integrateParallel(DoubleUnaryOperator, double, double, int, ForkJoinPool)
+	 */
+	public static double integrateParallel(DoubleUnaryOperator f, double a, double b, int N) {
+		return integrateParallel(f, a, b, N, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Calculates an approximate integral the function <b>f</b> on the closed interval
+	 * [<b>a</b>, <b>b</b>] using the trapezodial rule, evaluating <b>f</b> in parallel
+	 * on the common fork/join pool.
+	 * 
+	 * @param f - The function to integrate.
+	 * @param a - The start value of the interval to integrate.
+	 * @param b - The end value of the interval to integrate.
+	 * @return An approximation of the integral of <b>f</b> from <b>a</b> to <b>b</b>.
+	 * @see #integrateParallel(DoubleUnaryOperator, double, double, int, ForkJoinPool)
+	 */
+	public static double integrateParallel(DoubleUnaryOperator f, double a, double b) {
+		return integrateParallel(f, a, b, STANDARD_INTEGRAL_PRECISION, ForkJoinPool.commonPool());
+	}
+	
 	/**
 	 * Calculates the (approximated) derivative of a given function <b>f</b>
 	 * at a given point <b>x</b> with a given precision.
@@ -75,11 +221,12 @@ public final class AMath {
 	 * 
 	 * @return An approximate derivative of the function <b>f</b> at the point<b>x</b>.
 	 */
-	public static double derive(Function1<Double, Double> f, double x, double p){
+	@SuppressWarnings("overloads")
+	public static double derive(DoubleUnaryOperator f, double x, double p){
 		double x1 = x-p;
 		double x2 = x+p;
-		double y1 = f.f(x1);
-		double y2 = f.f(x2);
+		double y1 = f.applyAsDouble(x1);
+		double y2 = f.applyAsDouble(x2);
 		
 		return (y2-y1)/(x2-x1);
 	}
@@ -93,10 +240,146 @@ public final class AMath {
 	 * 
 	 * @return An approximate derivative of the function <b>f</b> at the point<b>x</b>.
 	 */
-	public static double derive(Function1<Double, Double> f, double x){
+	@SuppressWarnings("overloads")
+	public static double derive(DoubleUnaryOperator f, double x){
 		return derive(f, x, STANDARD_DERIVATE_PRECISION);
 	}
 	
+	/**
+	 * Calculates the (approximated) derivative of a given function <b>f</b>
+	 * at a given point <b>x</b> with a given precision.
+	 * 
+	 * @param f - The function to calculate the derivative of in the given point.
+	 * @param x - The point on the x axis to calculate the derivative of <b>f</b> for.
+	 * @param p - The precision to use. <b>p</b> shall be a positive number close to zero
+	 * 				but not exactly zero. The closer to zero <b>p</b> is the higher the
+	 * 				approximation will be.
+	 * 
+	 * @return An approximate derivative of the function <b>f</b> at the point<b>x</b>.
+	 */
+	public static double derive(RealFunction f, double x, double p){
+		return derive((DoubleUnaryOperator)f, x, p);
+	}
+	
+	/**
+	 * Calculates the (approximated) derivative of a given function <b>f</b>
+	 * at a given point <b>x</b>.
+	 * 
+	 * @param f - The function to calculate the derivative of in the given point.
+	 * @param x - The point on the x axis to calculate the derivative of <b>f</b> for.
+	 * 
+	 * @return An approximate derivative of the function <b>f</b> at the point<b>x</b>.
+	 */
+	public static double derive(RealFunction f, double x){
+		return derive((DoubleUnaryOperator)f, x, STANDARD_DERIVATE_PRECISION);
+	}
+	
+	/**
+	 * Calculates the (approximated) derivative of a given function <b>f</b>
+	 * at a given point <b>x</b> with a given precision.
+	 * 
+	 * @param f - The function to calculate the derivative of in the given point.
+	 * @param x - The point on the x axis to calculate the derivative of <b>f</b> for.
+	 * @param p - The precision to use. <b>p</b> shall be a positive number close to zero
+	 * 				but not exactly zero. The closer to zero <b>p</b> is the higher the
+	 * 				approximation will be.
+	 * 
+	 * @return An approximate derivative of the function <b>f</b> at the point<b>x</b>.
+	 */
+	@SuppressWarnings("overloads")
+	public static double derive(Function1<Double, Double> f, double x, double p){
+		return derive(RealFunction.of(f), x, p);
+	}
+	
+	/**
+	 * Calculates the (approximated) derivative of a given function <b>f</b>
+	 * at a given point <b>x</b>.
+	 * 
+	 * @param f - The function to calculate the derivative of in the given point.
+	 * @param x - The point on the x axis to calculate the derivative of <b>f</b> for.
+	 * 
+	 * @return An approximate derivative of the function <b>f</b> at the point<b>x</b>.
+	 */
+	@SuppressWarnings("overloads")
+	public static double derive(Function1<Double, Double> f, double x){
+		return derive(RealFunction.of(f), x, STANDARD_DERIVATE_PRECISION);
+	}
+	
+	/**
+	 * Calculates the exact derivative of a given function <b>f</b> at a
+	 * given point <b>x</b> using automatic differentiation.
+	 * 
+	 * @param f - The function to calculate the derivative of in the given point.
+	 * @param x - The point on the x axis to calculate the derivative of <b>f</b> for.
+	 * 
+	 * @return The derivative of the function <b>f</b> at the point<b>x</b>.
+	 * @see DualNumber
+	 */
+	public static double derive(DifferentiableFunction f, double x){
+		return f.derivative(x);
+	}
+	
+	/**
+	 * Calculates the (approximated) derivative of a given function <b>f</b>
+	 * at a given point <b>x</b> using Richardson extrapolation (Ridders' method).
+	 * Central differences with successively smaller steps, starting at 
+	 * <b>h</b>, are extrapolated to a step of zero until the estimated error
+	 * stops decreasing. This is usually accurate to 10 or more significant
+	 * digits, at the cost of up to 20 evaluations of <b>f</b>, and is meant
+	 * for functions that can't be differentiated automatically.
+	 * 
+	 * @param f - The function to calculate the derivative of in the given point.
+	 * @param x - The point on the x axis to calculate the derivative of <b>f</b> for.
+	 * @param h - The initial step. <b>h</b> should be a step over which <b>f</b>
+	 * 				changes noticeably; it does not need to be small.
+	 * 
+	 * @return An approximate derivative of the function <b>f</b> at the point<b>x</b>.
+	 */
+	public static double deriveRichardson(DoubleUnaryOperator f, double x, double h){
+		final int n = 10;
+		final double shrink = 1.4;
+		final double shrink2 = shrink * shrink;
+		
+		double[][] a = new double[n][n];
+		a[0][0] = (f.applyAsDouble(x + h) - f.applyAsDouble(x - h)) / (2 * h);
+		double derivative = a[0][0];
+		double error = Double.MAX_VALUE;
+		for(int i = 1; i < n; i++){
+			h /= shrink;
+			a[0][i] = (f.applyAsDouble(x + h) - f.applyAsDouble(x - h)) / (2 * h);
+			double fac = shrink2;
+			for(int j = 1; j <= i; j++){
+				a[j][i] = (a[j - 1][i] * fac - a[j - 1][i - 1]) / (fac - 1);
+				fac *= shrink2;
+				double e = Math.max(Math.abs(a[j][i] - a[j - 1][i]), 
+						Math.abs(a[j][i] - a[j - 1][i - 1]));
+				if(e <= error){
+					error = e;
+					derivative = a[j][i];
+				}
+			}
+			//Stop when the higher orders get worse (rounding errors take over)
+			if(Math.abs(a[i][i] - a[i - 1][i - 1]) >= 2 * error){
+				break;
+			}
+		}
+		return derivative;
+	}
+	
+	/**
+	 * Calculates the (approximated) derivative of a given function <b>f</b>
+	 * at a given point <b>x</b> using Richardson extrapolation.
+	 * 
+	 * @param f - The function to calculate the derivative of in the given point.
+	 * @param x - The point on the x axis to calculate the derivative of <b>f</b> for.
+	 * 
+	 * @return An approximate derivative of the function <b>f</b> at the point<b>x</b>.
+	 * @see #deriveRichardson(DoubleUnaryOperator, double, double)
+	 */
+	public static double deriveRichardson(DoubleUnaryOperator f, double x){
+		return deriveRichardson(f, x, 0.01 * Math.max(1, Math.abs(x)));
+	}
+	
 	/**
 	 * Gives a linear function fitting a given set of (x, y) coordinates
 	 * as well as possible.
@@ -104,9 +387,11 @@ public final class AMath {
 	 * @param xValues - The x coordinates.
 	 * @param yValues - The y coordinates.
 	 * @return A linear function, <code>f(x)=kx+m</code>, that fits the given
-	 * 			data points as well as possible.
+	 * 			data points as well as possible. The returned function can be
+	 * 			used both as a <code>Function1</code> and as a
+	 * 			<code>DoubleUnaryOperator</code>.
 	 */
-	public static Function1<Double, Double> linearRegress(double[] xValues, double[] yValues){
+	public static LinearFunction linearRegress(double[] xValues, double[] yValues){
 		if(xValues.length != yValues.length){
 			throw new IllegalArgumentException("Input lengths does not match.");
 		}
@@ -131,116 +416,1698 @@ public final class AMath {
 		double m = avgy - k * avgx;
 		return new LinearFunction(k, m);
 	}
-	
+
 	/**
-	 * Calculates the average of all values in an array
-	 * 
-	 * @param values - The values to calculate the average of.
-	 * @return The average of all values in <b>values</b>
+	 * Gives a linear function fitting a given function <b>f</b> sampled
+	 * at a given set of x coordinates as well as possible. <b>f</b> is
+	 * evaluated exactly once per x coordinate.
+	 *
+	 * @param f - The function to sample.
+	 * @param xValues - The x coordinates to sample <b>f</b> at.
+	 * @return A linear function, <code>g(x)=kx+m</code>, that fits
+	 * 			<b>f</b> at the given x coordinates as well as possible.
 	 */
-	public static double average(long[] values){
-		double sum = 0;
-		for(int i = 0; i < values.length; i++){
-			sum += values[i];
+	public static LinearFunction linearRegress(DoubleUnaryOperator f, double[] xValues){
+		//Single pass updating of the means and co-moments so that f
+		//doesn't have to be evaluated twice or stored per point.
+		double avgx = 0.0;
+		double avgy = 0.0;
+		double xBar = 0.0;
+		double xyBar = 0.0;
+		for(int i = 0; i < xValues.length; i++){
+			double x = xValues[i];
+			double y = f.applyAsDouble(x);
+			double dx = x - avgx;
+			avgx += dx / (i + 1);
+			avgy += (y - avgy) / (i + 1);
+			xBar += dx * (x - avgx);
+			xyBar += dx * (y - avgy);
 		}
-		return sum / values.length;
+
+		double k = xyBar / xBar;
+		double m = avgy - k * avgx;
+		return new LinearFunction(k, m);
 	}
-	
+
 	/**
-	 * Calculates the average of all values in an array
-	 * 
-	 * @param values - The values to calculate the average of.
-	 * @return The average of all values in <b>values</b>
+	 * Gives a polynomial function of a given degree fitting a given set of
+	 * (x, y) coordinates as well as possible in the least squares sense.
+	 * <br></br><br></br>
+	 *
+	 * The x coordinates are mapped to the interval [-1, 1] before fitting,
+	 * which keeps the fit well conditioned, and the fit is solved using a
+	 * QR decomposition (see {@link LeastSquaresSolver}).
+	 *
+	 * @param xValues - The x coordinates.
+	 * @param yValues - The y coordinates.
+	 * @param degree - The degree of the polynomial to fit.
+	 * @return A polynomial function of degree <b>degree</b> that fits the
+	 * 			given data points as well as possible.
+	 * @throws IllegalArgumentException if the input lengths does not match
+	 * 			or there are no more points than <b>degree</b>.
+	 * @throws ArithmeticException if there are too few distinct x coordinates
+	 * 			to determine the polynomial.
 	 */
-	public static double average(int[] values){
-		double sum = 0;
-		for(int i = 0; i < values.length; i++){
-			sum += values[i];
+	public static PolynomialFunction polynomialRegress(double[] xValues, double[] yValues, int degree){
+		if(xValues.length != yValues.length){
+			throw new IllegalArgumentException("Input lengths does not match.");
 		}
-		return sum / values.length;
+		if(degree < 0 || xValues.length <= degree){
+			throw new IllegalArgumentException("There must be more points than the degree");
+		}
+
+		double min = min(xValues);
+		double max = max(xValues);
+		double center = 0.5 * (min + max);
+		double halfWidth = max > min ? 0.5 * (max - min) : 1;
+
+		int terms = degree + 1;
+		LeastSquaresSolver solver = new LeastSquaresSolver(terms);
+		double[] work = solver.work();
+		int ld = solver.leadingDimension();
+		for(int i = 0; i < xValues.length; i++){
+			int r = solver.nextRow();
+			double t = (xValues[i] - center) / halfWidth;
+			double p = 1;
+			for(int j = 0; j < terms; j++){
+				work[j * ld + r] = p;
+				p *= t;
+			}
+			work[terms * ld + r] = yValues[i];
+		}
+		double[] b = solver.solve();
+
+		//Expand sum(b[k] * ((x - center) / halfWidth)^k) into powers of x
+		//using Horner's method on the coefficient arrays.
+		double[] coefficients = new double[terms];
+		coefficients[0] = b[degree];
+		for(int k = degree - 1; k >= 0; k--){
+			for(int j = degree - k; j > 0; j--){
+				coefficients[j] = (coefficients[j - 1] - center * coefficients[j]) / halfWidth;
+			}
+			coefficients[0] = -center * coefficients[0] / halfWidth + b[k];
+		}
+		return new PolynomialFunction(coefficients);
 	}
-	
+
 	/**
-	 * Calculates the average of all values in an array
-	 * 
-	 * @param values - The values to calculate the average of.
-	 * @return The average of all values in <b>values</b>
+	 * Gives the coefficients of a linear function of several variables,
+	 * <code>f(x<sub>1</sub>, ..., x<sub>p</sub>) = c<sub>0</sub> +
+	 * c<sub>1</sub>x<sub>1</sub> + ... + c<sub>p</sub>x<sub>p</sub></code>,
+	 * fitting a given set of observations as well as possible in the least
+	 * squares sense. The fit is solved using a QR decomposition
+	 * (see {@link LeastSquaresSolver}).
+	 *
+	 * @param xColumns - The observed values of the variables, one array per
+	 * 					variable; <code>xColumns[j][i]</code> is the value of
+	 * 					variable <i>j + 1</i> in observation <i>i</i>.
+	 * @param yValues - The observed values of the function.
+	 * @return The coefficients <code>{c<sub>0</sub>, c<sub>1</sub>, ...,
+	 * 			c<sub>p</sub>}</code> of the fitted function.
+	 * @throws IllegalArgumentException if the input lengths does not match, or
+	 * 			if there are fewer observations than coefficients.
+	 * @throws ArithmeticException if the variables are linearly dependent.
 	 */
-	public static double average(short[] values){
-		double sum = 0;
-		for(int i = 0; i < values.length; i++){
-			sum += values[i];
+	public static double[] linearRegress(double[][] xColumns, double[] yValues){
+		int rows = yValues.length;
+		for(int j = 0; j < xColumns.length; j++){
+			if(xColumns[j].length != rows){
+				throw new IllegalArgumentException("Input lengths does not match.");
+			}
+		}
+
+		int terms = xColumns.length + 1;
+		if(rows < terms){
+			throw new IllegalArgumentException("There must be at least as many observations as coefficients");
+		}
+		LeastSquaresSolver solver = new LeastSquaresSolver(terms);
+		double[] work = solver.work();
+		int ld = solver.leadingDimension();
+		for(int i = 0; i < rows; i++){
+			int r = solver.nextRow();
+			work[r] = 1;
+			for(int j = 1; j < terms; j++){
+				work[j * ld + r] = xColumns[j - 1][i];
+			}
+			work[terms * ld + r] = yValues[i];
 		}
-		return sum / values.length;
+		return solver.solve();
 	}
-	
+
 	/**
-	 * Calculates the average of all values in an array
+	 * Calculates the sum of all values in an array.
 	 * 
-	 * @param values - The values to calculate the average of.
-	 * @return The average of all values in <b>values</b>
+	 * @param values - The values to sum.
+	 * @return The sum of all values in <b>values</b>
 	 */
-	public static double average(byte[] values){
-		double sum = 0;
-		for(int i = 0; i < values.length; i++){
-			sum += values[i];
-		}
-		return sum / values.length;
+	public static double sum(long[] values){
+		return sum(values, 0, values.length);
 	}
 	
 	/**
-	 * Calculates the average of all values in an array
+	 * Calculates the sum of the values in a range of an array.
 	 * 
-	 * @param values - The values to calculate the average of.
-	 * @return The average of all values in <b>values</b>
+	 * @param values - The values to sum.
+	 * @param from - The index of the first value (inclusive) to sum.
+	 * @param to - The index of the last value (exclusive) to sum.
+	 * @return The sum of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
 	 */
-	public static double average(double[] values){
-		double sum = 0;
-		for(int i = 0; i < values.length; i++){
-			sum += values[i];
-		}
-		return sum / values.length;
+	public static double sum(long[] values, int from, int to){
+		checkRange(values.length, from, to);
+		return pairwiseSum(values, from, to);
 	}
 	
 	/**
-	 * Calculates the average of all values in an array
+	 * Calculates the sum of all values in an array.
 	 * 
-	 * @param values - The values to calculate the average of.
-	 * @return The average of all values in <b>values</b>
+	 * @param values - The values to sum.
+	 * @return The sum of all values in <b>values</b>
 	 */
-	public static double average(float[] values){
-		double sum = 0;
-		for(int i = 0; i < values.length; i++){
-			sum += values[i];
-		}
-		return sum / values.length;
+	public static double sum(int[] values){
+		return sum(values, 0, values.length);
 	}
 	
 	/**
-	 * The error function, <i>erf</i>, (a.k.a. Gauss error function).
-	 * <br></br><br></br>
+	 * Calculates the sum of the values in a range of an array.
 	 * 
-	 * NOTE: This is an approximation of the <i>real</i> error function.
-	 * The maximum error of this approximation is estimated to be
-	 * <i>1.7 * 10^-7<i>
-	 * 
-	 * @param x The argument to erf.
-	 * @return An approximation of <code>erf(x)</code>
+	 * @param values - The values to sum.
+	 * @param from - The index of the first value (inclusive) to sum.
+	 * @param to - The index of the last value (exclusive) to sum.
+	 * @return The sum of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
 	 */
-	public static double erf(double x){
-		//http://en.wikipedia.org/wiki/Error_function#Approximation_with_elementary_functions
-		if(x < 0){
-			return -erf(Math.abs(x));
-		}
-		final double p = 0.3275911;
-		final double t = 1 / (1 + (p*x));
-		final double[] a = {0.254829592, -0.284496736, 1.421413741, -1.453152027, 1.061405429};
-		final double c = (a[0] * t) + 
-						  (a[1] * t * t) + 
-						  (a[2] * t * t * t) + 
-						  (a[3] * t * t * t * t) + 
-						  (a[4] * t * t * t * t * t);
-		return 1 - c * Math.exp(-(x*x));
+	public static double sum(int[] values, int from, int to){
+		checkRange(values.length, from, to);
+		return exactSum(values, from, to);
+	}
+	
+	/**
+	 * Calculates the sum of all values in an array.
+	 * 
+	 * @param values - The values to sum.
+	 * @return The sum of all values in <b>values</b>
+	 */
+	public static double sum(short[] values){
+		return sum(values, 0, values.length);
+	}
+	
+	/**
+	 * Calculates the sum of the values in a range of an array.
+	 * 
+	 * @param values - The values to sum.
+	 * @param from - The index of the first value (inclusive) to sum.
+	 * @param to - The index of the last value (exclusive) to sum.
+	 * @return The sum of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static double sum(short[] values, int from, int to){
+		checkRange(values.length, from, to);
+		return exactSum(values, from, to);
+	}
+	
+	/**
+	 * Calculates the sum of all values in an array.
+	 * 
+	 * @param values - The values to sum.
+	 * @return The sum of all values in <b>values</b>
+	 */
+	public static double sum(byte[] values){
+		return sum(values, 0, values.length);
+	}
+	
+	/**
+	 * Calculates the sum of the values in a range of an array.
+	 * 
+	 * @param values - The values to sum.
+	 * @param from - The index of the first value (inclusive) to sum.
+	 * @param to - The index of the last value (exclusive) to sum.
+	 * @return The sum of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static double sum(byte[] values, int from, int to){
+		checkRange(values.length, from, to);
+		return exactSum(values, from, to);
+	}
+	
+	/**
+	 * Calculates the sum of all values in an array.
+	 * 
+	 * @param values - The values to sum.
+	 * @return The sum of all values in <b>values</b>
+	 */
+	public static double sum(double[] values){
+		return sum(values, 0, values.length);
+	}
+	
+	/**
+	 * Calculates the sum of the values in a range of an array.
+	 * 
+	 * @param values - The values to sum.
+	 * @param from - The index of the first value (inclusive) to sum.
+	 * @param to - The index of the last value (exclusive) to sum.
+	 * @return The sum of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static double sum(double[] values, int from, int to){
+		checkRange(values.length, from, to);
+		return pairwiseSum(values, from, to);
+	}
+	
+	/**
+	 * Calculates the sum of all values in an array.
+	 * 
+	 * @param values - The values to sum.
+	 * @return The sum of all values in <b>values</b>
+	 */
+	public static double sum(float[] values){
+		return sum(values, 0, values.length);
+	}
+	
+	/**
+	 * Calculates the sum of the values in a range of an array.
+	 * 
+	 * @param values - The values to sum.
+	 * @param from - The index of the first value (inclusive) to sum.
+	 * @param to - The index of the last value (exclusive) to sum.
+	 * @return The sum of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static double sum(float[] values, int from, int to){
+		checkRange(values.length, from, to);
+		return pairwiseSum(values, from, to);
+	}
+	
+	/**
+	 * Calculates the average of all values in an array
+	 * 
+	 * @param values - The values to calculate the average of.
+	 * @return The average of all values in <b>values</b>
+	 */
+	public static double average(long[] values){
+		return average(values, 0, values.length);
+	}
+	
+	/**
+	 * Calculates the average of the values in a range of an array.
+	 * 
+	 * @param values - The values to calculate the average of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The average of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static double average(long[] values, int from, int to){
+		return sum(values, from, to) / (to - from);
+	}
+	
+	/**
+	 * Calculates the average of all values in an array
+	 * 
+	 * @param values - The values to calculate the average of.
+	 * @return The average of all values in <b>values</b>
+	 */
+	public static double average(int[] values){
+		return average(values, 0, values.length);
+	}
+	
+	/**
+	 * Calculates the average of the values in a range of an array.
+	 * 
+	 * @param values - The values to calculate the average of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The average of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static double average(int[] values, int from, int to){
+		return sum(values, from, to) / (to - from);
+	}
+	
+	/**
+	 * Calculates the average of all values in an array
+	 * 
+	 * @param values - The values to calculate the average of.
+	 * @return The average of all values in <b>values</b>
+	 */
+	public static double average(short[] values){
+		return average(values, 0, values.length);
+	}
+	
+	/**
+	 * Calculates the average of the values in a range of an array.
+	 * 
+	 * @param values - The values to calculate the average of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The average of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static double average(short[] values, int from, int to){
+		return sum(values, from, to) / (to - from);
+	}
+	
+	/**
+	 * Calculates the average of all values in an array
+	 * 
+	 * @param values - The values to calculate the average of.
+	 * @return The average of all values in <b>values</b>
+	 */
+	public static double average(byte[] values){
+		return average(values, 0, values.length);
+	}
+	
+	/**
+	 * Calculates the average of the values in a range of an array.
+	 * 
+	 * @param values - The values to calculate the average of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The average of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static double average(byte[] values, int from, int to){
+		return sum(values, from, to) / (to - from);
+	}
+	
+	/**
+	 * Calculates the average of all values in an array
+	 * 
+	 * @param values - The values to calculate the average of.
+	 * @return The average of all values in <b>values</b>
+	 */
+	public static double average(double[] values){
+		return average(values, 0, values.length);
+	}
+	
+	/**
+	 * Calculates the average of the values in a range of an array.
+	 * 
+	 * @param values - The values to calculate the average of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The average of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static double average(double[] values, int from, int to){
+		return sum(values, from, to) / (to - from);
+	}
+	
+	/**
+	 * Calculates the average of all values in an array
+	 * 
+	 * @param values - The values to calculate the average of.
+	 * @return The average of all values in <b>values</b>
+	 */
+	public static double average(float[] values){
+		return average(values, 0, values.length);
+	}
+	
+	/**
+	 * Calculates the average of the values in a range of an array.
+	 * 
+	 * @param values - The values to calculate the average of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The average of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static double average(float[] values, int from, int to){
+		return sum(values, from, to) / (to - from);
+	}
+	
+	/**
+	 * Gives the smallest value in an array.
+	 * 
+	 * @param values - The values to find the smallest value of.
+	 * @return The smallest value in <b>values</b>
+	 * @throws IllegalArgumentException if <b>values</b> is empty
+	 */
+	public static long min(long[] values){
+		return min(values, 0, values.length);
+	}
+	
+	/**
+	 * Gives the smallest value in a range of an array.
+	 * 
+	 * @param values - The values to find the smallest value of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The smallest value of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if the range is empty
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static long min(long[] values, int from, int to){
+		checkRange(values.length, from, to);
+		if(from == to){
+			throw new IllegalArgumentException("Range must not be empty");
+		}
+		long m = values[from];
+		for(int i = from + 1; i < to; i++){
+			if(values[i] < m){
+				m = values[i];
+			}
+		}
+		return m;
+	}
+	
+	/**
+	 * Gives the smallest value in an array.
+	 * 
+	 * @param values - The values to find the smallest value of.
+	 * @return The smallest value in <b>values</b>
+	 * @throws IllegalArgumentException if <b>values</b> is empty
+	 */
+	public static int min(int[] values){
+		return min(values, 0, values.length);
+	}
+	
+	/**
+	 * Gives the smallest value in a range of an array.
+	 * 
+	 * @param values - The values to find the smallest value of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The smallest value of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if the range is empty
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static int min(int[] values, int from, int to){
+		checkRange(values.length, from, to);
+		if(from == to){
+			throw new IllegalArgumentException("Range must not be empty");
+		}
+		int m = values[from];
+		for(int i = from + 1; i < to; i++){
+			if(values[i] < m){
+				m = values[i];
+			}
+		}
+		return m;
+	}
+	
+	/**
+	 * Gives the smallest value in an array.
+	 * 
+	 * @param values - The values to find the smallest value of.
+	 * @return The smallest value in <b>values</b>
+	 * @throws IllegalArgumentException if <b>values</b> is empty
+	 */
+	public static short min(short[] values){
+		return min(values, 0, values.length);
+	}
+	
+	/**
+	 * Gives the smallest value in a range of an array.
+	 * 
+	 * @param values - The values to find the smallest value of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The smallest value of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if the range is empty
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static short min(short[] values, int from, int to){
+		checkRange(values.length, from, to);
+		if(from == to){
+			throw new IllegalArgumentException("Range must not be empty");
+		}
+		short m = values[from];
+		for(int i = from + 1; i < to; i++){
+			if(values[i] < m){
+				m = values[i];
+			}
+		}
+		return m;
+	}
+	
+	/**
+	 * Gives the smallest value in an array.
+	 * 
+	 * @param values - The values to find the smallest value of.
+	 * @return The smallest value in <b>values</b>
+	 * @throws IllegalArgumentException if <b>values</b> is empty
+	 */
+	public static byte min(byte[] values){
+		return min(values, 0, values.length);
+	}
+	
+	/**
+	 * Gives the smallest value in a range of an array.
+	 * 
+	 * @param values - The values to find the smallest value of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The smallest value of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if the range is empty
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static byte min(byte[] values, int from, int to){
+		checkRange(values.length, from, to);
+		if(from == to){
+			throw new IllegalArgumentException("Range must not be empty");
+		}
+		byte m = values[from];
+		for(int i = from + 1; i < to; i++){
+			if(values[i] < m){
+				m = values[i];
+			}
+		}
+		return m;
+	}
+	
+	/**
+	 * Gives the smallest value in an array.
+	 * If any of the values is NaN the result is NaN.
+	 * 
+	 * @param values - The values to find the smallest value of.
+	 * @return The smallest value in <b>values</b>
+	 * @throws IllegalArgumentException if <b>values</b> is empty
+	 */
+	public static double min(double[] values){
+		return min(values, 0, values.length);
+	}
+	
+	/**
+	 * Gives the smallest value in a range of an array.
+	 * If any of the values is NaN the result is NaN.
+	 * 
+	 * @param values - The values to find the smallest value of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The smallest value of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if the range is empty
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static double min(double[] values, int from, int to){
+		checkRange(values.length, from, to);
+		if(from == to){
+			throw new IllegalArgumentException("Range must not be empty");
+		}
+		double m = values[from];
+		for(int i = from + 1; i < to; i++){
+			m = Math.min(m, values[i]);
+		}
+		return m;
+	}
+	
+	/**
+	 * Gives the smallest value in an array.
+	 * If any of the values is NaN the result is NaN.
+	 * 
+	 * @param values - The values to find the smallest value of.
+	 * @return The smallest value in <b>values</b>
+	 * @throws IllegalArgumentException if <b>values</b> is empty
+	 */
+	public static float min(float[] values){
+		return min(values, 0, values.length);
+	}
+	
+	/**
+	 * Gives the smallest value in a range of an array.
+	 * If any of the values is NaN the result is NaN.
+	 * 
+	 * @param values - The values to find the smallest value of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The smallest value of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if the range is empty
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static float min(float[] values, int from, int to){
+		checkRange(values.length, from, to);
+		if(from == to){
+			throw new IllegalArgumentException("Range must not be empty");
+		}
+		float m = values[from];
+		for(int i = from + 1; i < to; i++){
+			m = Math.min(m, values[i]);
+		}
+		return m;
+	}
+	
+	/**
+	 * Gives the largest value in an array.
+	 * 
+	 * @param values - The values to find the largest value of.
+	 * @return The largest value in <b>values</b>
+	 * @throws IllegalArgumentException if <b>values</b> is empty
+	 */
+	public static long max(long[] values){
+		return max(values, 0, values.length);
+	}
+	
+	/**
+	 * Gives the largest value in a range of an array.
+	 * 
+	 * @param values - The values to find the largest value of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The largest value of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if the range is empty
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static long max(long[] values, int from, int to){
+		checkRange(values.length, from, to);
+		if(from == to){
+			throw new IllegalArgumentException("Range must not be empty");
+		}
+		long m = values[from];
+		for(int i = from + 1; i < to; i++){
+			if(values[i] > m){
+				m = values[i];
+			}
+		}
+		return m;
+	}
+	
+	/**
+	 * Gives the largest value in an array.
+	 * 
+	 * @param values - The values to find the largest value of.
+	 * @return The largest value in <b>values</b>
+	 * @throws IllegalArgumentException if <b>values</b> is empty
+	 */
+	public static int max(int[] values){
+		return max(values, 0, values.length);
+	}
+	
+	/**
+	 * Gives the largest value in a range of an array.
+	 * 
+	 * @param values - The values to find the largest value of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The largest value of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if the range is empty
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static int max(int[] values, int from, int to){
+		checkRange(values.length, from, to);
+		if(from == to){
+			throw new IllegalArgumentException("Range must not be empty");
+		}
+		int m = values[from];
+		for(int i = from + 1; i < to; i++){
+			if(values[i] > m){
+				m = values[i];
+			}
+		}
+		return m;
+	}
+	
+	/**
+	 * Gives the largest value in an array.
+	 * 
+	 * @param values - The values to find the largest value of.
+	 * @return The largest value in <b>values</b>
+	 * @throws IllegalArgumentException if <b>values</b> is empty
+	 */
+	public static short max(short[] values){
+		return max(values, 0, values.length);
+	}
+	
+	/**
+	 * Gives the largest value in a range of an array.
+	 * 
+	 * @param values - The values to find the largest value of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The largest value of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if the range is empty
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static short max(short[] values, int from, int to){
+		checkRange(values.length, from, to);
+		if(from == to){
+			throw new IllegalArgumentException("Range must not be empty");
+		}
+		short m = values[from];
+		for(int i = from + 1; i < to; i++){
+			if(values[i] > m){
+				m = values[i];
+			}
+		}
+		return m;
+	}
+	
+	/**
+	 * Gives the largest value in an array.
+	 * 
+	 * @param values - The values to find the largest value of.
+	 * @return The largest value in <b>values</b>
+	 * @throws IllegalArgumentException if <b>values</b> is empty
+	 */
+	public static byte max(byte[] values){
+		return max(values, 0, values.length);
+	}
+	
+	/**
+	 * Gives the largest value in a range of an array.
+	 * 
+	 * @param values - The values to find the largest value of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The largest value of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if the range is empty
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static byte max(byte[] values, int from, int to){
+		checkRange(values.length, from, to);
+		if(from == to){
+			throw new IllegalArgumentException("Range must not be empty");
+		}
+		byte m = values[from];
+		for(int i = from + 1; i < to; i++){
+			if(values[i] > m){
+				m = values[i];
+			}
+		}
+		return m;
+	}
+	
+	/**
+	 * Gives the largest value in an array.
+	 * If any of the values is NaN the result is NaN.
+	 * 
+	 * @param values - The values to find the largest value of.
+	 * @return The largest value in <b>values</b>
+	 * @throws IllegalArgumentException if <b>values</b> is empty
+	 */
+	public static double max(double[] values){
+		return max(values, 0, values.length);
+	}
+	
+	/**
+	 * Gives the largest value in a range of an array.
+	 * If any of the values is NaN the result is NaN.
+	 * 
+	 * @param values - The values to find the largest value of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The largest value of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if the range is empty
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static double max(double[] values, int from, int to){
+		checkRange(values.length, from, to);
+		if(from == to){
+			throw new IllegalArgumentException("Range must not be empty");
+		}
+		double m = values[from];
+		for(int i = from + 1; i < to; i++){
+			m = Math.max(m, values[i]);
+		}
+		return m;
+	}
+	
+	/**
+	 * Gives the largest value in an array.
+	 * If any of the values is NaN the result is NaN.
+	 * 
+	 * @param values - The values to find the largest value of.
+	 * @return The largest value in <b>values</b>
+	 * @throws IllegalArgumentException if <b>values</b> is empty
+	 */
+	public static float max(float[] values){
+		return max(values, 0, values.length);
+	}
+	
+	/**
+	 * Gives the largest value in a range of an array.
+	 * If any of the values is NaN the result is NaN.
+	 * 
+	 * @param values - The values to find the largest value of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The largest value of <b>values[from]</b> to <b>values[to - 1]</b>
+	 * @throws IllegalArgumentException if the range is empty
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static float max(float[] values, int from, int to){
+		checkRange(values.length, from, to);
+		if(from == to){
+			throw new IllegalArgumentException("Range must not be empty");
+		}
+		float m = values[from];
+		for(int i = from + 1; i < to; i++){
+			m = Math.max(m, values[i]);
+		}
+		return m;
+	}
+	
+	/**
+	 * Calculates the (unbiased) sample variance of all values in an array.
+	 * 
+	 * @param values - The values to calculate the variance of.
+	 * @return The sample variance of all values in <b>values</b>, or NaN
+	 * 			if <b>values</b> has fewer than two values.
+	 */
+	public static double variance(long[] values){
+		return variance(values, 0, values.length);
+	}
+	
+	/**
+	 * Calculates the (unbiased) sample variance of the values in a range 
+	 * of an array.
+	 * 
+	 * @param values - The values to calculate the variance of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The sample variance of <b>values[from]</b> to <b>values[to - 1]</b>,
+	 * 			or NaN if the range has fewer than two values.
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static double variance(long[] values, int from, int to){
+		checkRange(values.length, from, to);
+		if(to - from < 2){
+			return Double.NaN;
+		}
+		double mean = average(values, from, to);
+		return squaredDeviationSum(values, from, to, mean) / (to - from - 1);
+	}
+	
+	/**
+	 * Calculates the (unbiased) sample variance of all values in an array.
+	 * 
+	 * @param values - The values to calculate the variance of.
+	 * @return The sample variance of all values in <b>values</b>, or NaN
+	 * 			if <b>values</b> has fewer than two values.
+	 */
+	public static double variance(int[] values){
+		return variance(values, 0, values.length);
+	}
+	
+	/**
+	 * Calculates the (unbiased) sample variance of the values in a range 
+	 * of an array.
+	 * 
+	 * @param values - The values to calculate the variance of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The sample variance of <b>values[from]</b> to <b>values[to - 1]</b>,
+	 * 			or NaN if the range has fewer than two values.
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static double variance(int[] values, int from, int to){
+		checkRange(values.length, from, to);
+		if(to - from < 2){
+			return Double.NaN;
+		}
+		double mean = average(values, from, to);
+		return squaredDeviationSum(values, from, to, mean) / (to - from - 1);
+	}
+	
+	/**
+	 * Calculates the (unbiased) sample variance of all values in an array.
+	 * 
+	 * @param values - The values to calculate the variance of.
+	 * @return The sample variance of all values in <b>values</b>, or NaN
+	 * 			if <b>values</b> has fewer than two values.
+	 */
+	public static double variance(short[] values){
+		return variance(values, 0, values.length);
+	}
+	
+	/**
+	 * Calculates the (unbiased) sample variance of the values in a range 
+	 * of an array.
+	 * 
+	 * @param values - The values to calculate the variance of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The sample variance of <b>values[from]</b> to <b>values[to - 1]</b>,
+	 * 			or NaN if the range has fewer than two values.
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static double variance(short[] values, int from, int to){
+		checkRange(values.length, from, to);
+		if(to - from < 2){
+			return Double.NaN;
+		}
+		double mean = average(values, from, to);
+		return squaredDeviationSum(values, from, to, mean) / (to - from - 1);
+	}
+	
+	/**
+	 * Calculates the (unbiased) sample variance of all values in an array.
+	 * 
+	 * @param values - The values to calculate the variance of.
+	 * @return The sample variance of all values in <b>values</b>, or NaN
+	 * 			if <b>values</b> has fewer than two values.
+	 */
+	public static double variance(byte[] values){
+		return variance(values, 0, values.length);
+	}
+	
+	/**
+	 * Calculates the (unbiased) sample variance of the values in a range 
+	 * of an array.
+	 * 
+	 * @param values - The values to calculate the variance of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The sample variance of <b>values[from]</b> to <b>values[to - 1]</b>,
+	 * 			or NaN if the range has fewer than two values.
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static double variance(byte[] values, int from, int to){
+		checkRange(values.length, from, to);
+		if(to - from < 2){
+			return Double.NaN;
+		}
+		double mean = average(values, from, to);
+		return squaredDeviationSum(values, from, to, mean) / (to - from - 1);
+	}
+	
+	/**
+	 * Calculates the (unbiased) sample variance of all values in an array.
+	 * 
+	 * @param values - The values to calculate the variance of.
+	 * @return The sample variance of all values in <b>values</b>, or NaN
+	 * 			if <b>values</b> has fewer than two values.
+	 */
+	public static double variance(double[] values){
+		return variance(values, 0, values.length);
+	}
+	
+	/**
+	 * Calculates the (unbiased) sample variance of the values in a range 
+	 * of an array.
+	 * 
+	 * @param values - The values to calculate the variance of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The sample variance of <b>values[from]</b> to <b>values[to - 1]</b>,
+	 * 			or NaN if the range has fewer than two values.
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static double variance(double[] values, int from, int to){
+		checkRange(values.length, from, to);
+		if(to - from < 2){
+			return Double.NaN;
+		}
+		double mean = average(values, from, to);
+		return squaredDeviationSum(values, from, to, mean) / (to - from - 1);
+	}
+	
+	/**
+	 * Calculates the (unbiased) sample variance of all values in an array.
+	 * 
+	 * @param values - The values to calculate the variance of.
+	 * @return The sample variance of all values in <b>values</b>, or NaN
+	 * 			if <b>values</b> has fewer than two values.
+	 */
+	public static double variance(float[] values){
+		return variance(values, 0, values.length);
+	}
+	
+	/**
+	 * Calculates the (unbiased) sample variance of the values in a range 
+	 * of an array.
+	 * 
+	 * @param values - The values to calculate the variance of.
+	 * @param from - The index of the first value (inclusive) to include.
+	 * @param to - The index of the last value (exclusive) to include.
+	 * @return The sample variance of <b>values[from]</b> to <b>values[to - 1]</b>,
+	 * 			or NaN if the range has fewer than two values.
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of <b>values</b>
+	 */
+	public static double variance(float[] values, int from, int to){
+		checkRange(values.length, from, to);
+		if(to - from < 2){
+			return Double.NaN;
+		}
+		double mean = average(values, from, to);
+		return squaredDeviationSum(values, from, to, mean) / (to - from - 1);
+	}
+	
+	/**
+	 * Calculates the dot product of two arrays of equal length.
+	 * 
+	 * @param a - The first vector.
+	 * @param b - The second vector.
+	 * @return The sum of <code>a[i] * b[i]</code> for all <b>i</b>.
+	 * @throws IllegalArgumentException if the lengths of the arrays does not match.
+	 */
+	public static double dot(long[] a, long[] b){
+		if(a.length != b.length){
+			throw new IllegalArgumentException("Input lengths does not match.");
+		}
+		return dot(a, b, 0, a.length);
+	}
+	
+	/**
+	 * Calculates the dot product of the same range of two arrays.
+	 * 
+	 * @param a - The first vector.
+	 * @param b - The second vector.
+	 * @param from - The index of the first element (inclusive) to include.
+	 * @param to - The index of the last element (exclusive) to include.
+	 * @return The sum of <code>a[i] * b[i]</code> for <b>from</b> &lt;= <b>i</b> &lt; <b>to</b>.
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of either array
+	 */
+	public static double dot(long[] a, long[] b, int from, int to){
+		checkRange(a.length, from, to);
+		checkRange(b.length, from, to);
+		return pairwiseDot(a, b, from, to);
+	}
+	
+	/**
+	 * Calculates the dot product of two arrays of equal length.
+	 * 
+	 * @param a - The first vector.
+	 * @param b - The second vector.
+	 * @return The sum of <code>a[i] * b[i]</code> for all <b>i</b>.
+	 * @throws IllegalArgumentException if the lengths of the arrays does not match.
+	 */
+	public static double dot(int[] a, int[] b){
+		if(a.length != b.length){
+			throw new IllegalArgumentException("Input lengths does not match.");
+		}
+		return dot(a, b, 0, a.length);
+	}
+	
+	/**
+	 * Calculates the dot product of the same range of two arrays.
+	 * 
+	 * @param a - The first vector.
+	 * @param b - The second vector.
+	 * @param from - The index of the first element (inclusive) to include.
+	 * @param to - The index of the last element (exclusive) to include.
+	 * @return The sum of <code>a[i] * b[i]</code> for <b>from</b> &lt;= <b>i</b> &lt; <b>to</b>.
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of either array
+	 */
+	public static double dot(int[] a, int[] b, int from, int to){
+		checkRange(a.length, from, to);
+		checkRange(b.length, from, to);
+		return pairwiseDot(a, b, from, to);
+	}
+	
+	/**
+	 * Calculates the dot product of two arrays of equal length.
+	 * 
+	 * @param a - The first vector.
+	 * @param b - The second vector.
+	 * @return The sum of <code>a[i] * b[i]</code> for all <b>i</b>.
+	 * @throws IllegalArgumentException if the lengths of the arrays does not match.
+	 */
+	public static double dot(short[] a, short[] b){
+		if(a.length != b.length){
+			throw new IllegalArgumentException("Input lengths does not match.");
+		}
+		return dot(a, b, 0, a.length);
+	}
+	
+	/**
+	 * Calculates the dot product of the same range of two arrays.
+	 * 
+	 * @param a - The first vector.
+	 * @param b - The second vector.
+	 * @param from - The index of the first element (inclusive) to include.
+	 * @param to - The index of the last element (exclusive) to include.
+	 * @return The sum of <code>a[i] * b[i]</code> for <b>from</b> &lt;= <b>i</b> &lt; <b>to</b>.
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of either array
+	 */
+	public static double dot(short[] a, short[] b, int from, int to){
+		checkRange(a.length, from, to);
+		checkRange(b.length, from, to);
+		return pairwiseDot(a, b, from, to);
+	}
+	
+	/**
+	 * Calculates the dot product of two arrays of equal length.
+	 * 
+	 * @param a - The first vector.
+	 * @param b - The second vector.
+	 * @return The sum of <code>a[i] * b[i]</code> for all <b>i</b>.
+	 * @throws IllegalArgumentException if the lengths of the arrays does not match.
+	 */
+	public static double dot(byte[] a, byte[] b){
+		if(a.length != b.length){
+			throw new IllegalArgumentException("Input lengths does not match.");
+		}
+		return dot(a, b, 0, a.length);
+	}
+	
+	/**
+	 * Calculates the dot product of the same range of two arrays.
+	 * 
+	 * @param a - The first vector.
+	 * @param b - The second vector.
+	 * @param from - The index of the first element (inclusive) to include.
+	 * @param to - The index of the last element (exclusive) to include.
+	 * @return The sum of <code>a[i] * b[i]</code> for <b>from</b> &lt;= <b>i</b> &lt; <b>to</b>.
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of either array
+	 */
+	public static double dot(byte[] a, byte[] b, int from, int to){
+		checkRange(a.length, from, to);
+		checkRange(b.length, from, to);
+		return pairwiseDot(a, b, from, to);
+	}
+	
+	/**
+	 * Calculates the dot product of two arrays of equal length.
+	 * 
+	 * @param a - The first vector.
+	 * @param b - The second vector.
+	 * @return The sum of <code>a[i] * b[i]</code> for all <b>i</b>.
+	 * @throws IllegalArgumentException if the lengths of the arrays does not match.
+	 */
+	public static double dot(double[] a, double[] b){
+		if(a.length != b.length){
+			throw new IllegalArgumentException("Input lengths does not match.");
+		}
+		return dot(a, b, 0, a.length);
+	}
+	
+	/**
+	 * Calculates the dot product of the same range of two arrays.
+	 * 
+	 * @param a - The first vector.
+	 * @param b - The second vector.
+	 * @param from - The index of the first element (inclusive) to include.
+	 * @param to - The index of the last element (exclusive) to include.
+	 * @return The sum of <code>a[i] * b[i]</code> for <b>from</b> &lt;= <b>i</b> &lt; <b>to</b>.
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of either array
+	 */
+	public static double dot(double[] a, double[] b, int from, int to){
+		checkRange(a.length, from, to);
+		checkRange(b.length, from, to);
+		return pairwiseDot(a, b, from, to);
+	}
+	
+	/**
+	 * Calculates the dot product of two arrays of equal length.
+	 * 
+	 * @param a - The first vector.
+	 * @param b - The second vector.
+	 * @return The sum of <code>a[i] * b[i]</code> for all <b>i</b>.
+	 * @throws IllegalArgumentException if the lengths of the arrays does not match.
+	 */
+	public static double dot(float[] a, float[] b){
+		if(a.length != b.length){
+			throw new IllegalArgumentException("Input lengths does not match.");
+		}
+		return dot(a, b, 0, a.length);
+	}
+	
+	/**
+	 * Calculates the dot product of the same range of two arrays.
+	 * 
+	 * @param a - The first vector.
+	 * @param b - The second vector.
+	 * @param from - The index of the first element (inclusive) to include.
+	 * @param to - The index of the last element (exclusive) to include.
+	 * @return The sum of <code>a[i] * b[i]</code> for <b>from</b> &lt;= <b>i</b> &lt; <b>to</b>.
+	 * @throws IllegalArgumentException if <b>from</b> &gt; <b>to</b>
+	 * @throws ArrayIndexOutOfBoundsException if the range is outside of either array
+	 */
+	public static double dot(float[] a, float[] b, int from, int to){
+		checkRange(a.length, from, to);
+		checkRange(b.length, from, to);
+		return pairwiseDot(a, b, from, to);
+	}
+	
+	/**
+	 * The largest number of elements that the pairwise summation kernels
+	 * sum directly instead of splitting further.
+	 */
+	private static final int PAIRWISE_BLOCK = 128;
+	
+	private static void checkRange(int length, int from, int to){
+		if(from > to){
+			throw new IllegalArgumentException("from(" + from + ") > to(" + to + ")");
+		}
+		if(from < 0){
+			throw new ArrayIndexOutOfBoundsException(from);
+		}
+		if(to > length){
+			throw new ArrayIndexOutOfBoundsException(to);
+		}
+	}
+	
+	private static double exactSum(int[] v, int from, int to){
+		//A long can't overflow from adding fewer than 2^31 ints.
+		long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = from;
+		for(; i + 3 < to; i += 4){
+			s0 += v[i];
+			s1 += v[i + 1];
+			s2 += v[i + 2];
+			s3 += v[i + 3];
+		}
+		for(; i < to; i++){
+			s0 += v[i];
+		}
+		return (double)(s0 + s1 + s2 + s3);
+	}
+	
+	private static double exactSum(short[] v, int from, int to){
+		//A long can't overflow from adding fewer than 2^31 shorts.
+		long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = from;
+		for(; i + 3 < to; i += 4){
+			s0 += v[i];
+			s1 += v[i + 1];
+			s2 += v[i + 2];
+			s3 += v[i + 3];
+		}
+		for(; i < to; i++){
+			s0 += v[i];
+		}
+		return (double)(s0 + s1 + s2 + s3);
+	}
+	
+	private static double exactSum(byte[] v, int from, int to){
+		//A long can't overflow from adding fewer than 2^31 bytes.
+		long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = from;
+		for(; i + 3 < to; i += 4){
+			s0 += v[i];
+			s1 += v[i + 1];
+			s2 += v[i + 2];
+			s3 += v[i + 3];
+		}
+		for(; i < to; i++){
+			s0 += v[i];
+		}
+		return (double)(s0 + s1 + s2 + s3);
+	}
+	
+	private static double pairwiseSum(long[] v, int from, int to){
+		if(to - from > PAIRWISE_BLOCK){
+			int mid = (from + to) >>> 1;
+			return pairwiseSum(v, from, mid) + pairwiseSum(v, mid, to);
+		}
+		double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = from;
+		for(; i + 3 < to; i += 4){
+			s0 += v[i];
+			s1 += v[i + 1];
+			s2 += v[i + 2];
+			s3 += v[i + 3];
+		}
+		for(; i < to; i++){
+			s0 += v[i];
+		}
+		return (s0 + s1) + (s2 + s3);
+	}
+	
+	private static double pairwiseSum(double[] v, int from, int to){
+		if(to - from > PAIRWISE_BLOCK){
+			int mid = (from + to) >>> 1;
+			return pairwiseSum(v, from, mid) + pairwiseSum(v, mid, to);
+		}
+		double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = from;
+		for(; i + 3 < to; i += 4){
+			s0 += v[i];
+			s1 += v[i + 1];
+			s2 += v[i + 2];
+			s3 += v[i + 3];
+		}
+		for(; i < to; i++){
+			s0 += v[i];
+		}
+		return (s0 + s1) + (s2 + s3);
+	}
+	
+	private static double pairwiseSum(float[] v, int from, int to){
+		if(to - from > PAIRWISE_BLOCK){
+			int mid = (from + to) >>> 1;
+			return pairwiseSum(v, from, mid) + pairwiseSum(v, mid, to);
+		}
+		double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = from;
+		for(; i + 3 < to; i += 4){
+			s0 += v[i];
+			s1 += v[i + 1];
+			s2 += v[i + 2];
+			s3 += v[i + 3];
+		}
+		for(; i < to; i++){
+			s0 += v[i];
+		}
+		return (s0 + s1) + (s2 + s3);
+	}
+	
+	private static double squaredDeviationSum(long[] v, int from, int to, double mean){
+		if(to - from > PAIRWISE_BLOCK){
+			int mid = (from + to) >>> 1;
+			return squaredDeviationSum(v, from, mid, mean) + squaredDeviationSum(v, mid, to, mean);
+		}
+		double s0 = 0, s1 = 0;
+		int i = from;
+		for(; i + 1 < to; i += 2){
+			double d0 = v[i] - mean;
+			double d1 = v[i + 1] - mean;
+			s0 += d0 * d0;
+			s1 += d1 * d1;
+		}
+		for(; i < to; i++){
+			double d = v[i] - mean;
+			s0 += d * d;
+		}
+		return s0 + s1;
+	}
+	
+	private static double squaredDeviationSum(int[] v, int from, int to, double mean){
+		if(to - from > PAIRWISE_BLOCK){
+			int mid = (from + to) >>> 1;
+			return squaredDeviationSum(v, from, mid, mean) + squaredDeviationSum(v, mid, to, mean);
+		}
+		double s0 = 0, s1 = 0;
+		int i = from;
+		for(; i + 1 < to; i += 2){
+			double d0 = v[i] - mean;
+			double d1 = v[i + 1] - mean;
+			s0 += d0 * d0;
+			s1 += d1 * d1;
+		}
+		for(; i < to; i++){
+			double d = v[i] - mean;
+			s0 += d * d;
+		}
+		return s0 + s1;
+	}
+	
+	private static double squaredDeviationSum(short[] v, int from, int to, double mean){
+		if(to - from > PAIRWISE_BLOCK){
+			int mid = (from + to) >>> 1;
+			return squaredDeviationSum(v, from, mid, mean) + squaredDeviationSum(v, mid, to, mean);
+		}
+		double s0 = 0, s1 = 0;
+		int i = from;
+		for(; i + 1 < to; i += 2){
+			double d0 = v[i] - mean;
+			double d1 = v[i + 1] - mean;
+			s0 += d0 * d0;
+			s1 += d1 * d1;
+		}
+		for(; i < to; i++){
+			double d = v[i] - mean;
+			s0 += d * d;
+		}
+		return s0 + s1;
+	}
+	
+	private static double squaredDeviationSum(byte[] v, int from, int to, double mean){
+		if(to - from > PAIRWISE_BLOCK){
+			int mid = (from + to) >>> 1;
+			return squaredDeviationSum(v, from, mid, mean) + squaredDeviationSum(v, mid, to, mean);
+		}
+		double s0 = 0, s1 = 0;
+		int i = from;
+		for(; i + 1 < to; i += 2){
+			double d0 = v[i] - mean;
+			double d1 = v[i + 1] - mean;
+			s0 += d0 * d0;
+			s1 += d1 * d1;
+		}
+		for(; i < to; i++){
+			double d = v[i] - mean;
+			s0 += d * d;
+		}
+		return s0 + s1;
+	}
+	
+	private static double squaredDeviationSum(double[] v, int from, int to, double mean){
+		if(to - from > PAIRWISE_BLOCK){
+			int mid = (from + to) >>> 1;
+			return squaredDeviationSum(v, from, mid, mean) + squaredDeviationSum(v, mid, to, mean);
+		}
+		double s0 = 0, s1 = 0;
+		int i = from;
+		for(; i + 1 < to; i += 2){
+			double d0 = v[i] - mean;
+			double d1 = v[i + 1] - mean;
+			s0 += d0 * d0;
+			s1 += d1 * d1;
+		}
+		for(; i < to; i++){
+			double d = v[i] - mean;
+			s0 += d * d;
+		}
+		return s0 + s1;
+	}
+	
+	private static double squaredDeviationSum(float[] v, int from, int to, double mean){
+		if(to - from > PAIRWISE_BLOCK){
+			int mid = (from + to) >>> 1;
+			return squaredDeviationSum(v, from, mid, mean) + squaredDeviationSum(v, mid, to, mean);
+		}
+		double s0 = 0, s1 = 0;
+		int i = from;
+		for(; i + 1 < to; i += 2){
+			double d0 = v[i] - mean;
+			double d1 = v[i + 1] - mean;
+			s0 += d0 * d0;
+			s1 += d1 * d1;
+		}
+		for(; i < to; i++){
+			double d = v[i] - mean;
+			s0 += d * d;
+		}
+		return s0 + s1;
+	}
+	
+	private static double pairwiseDot(long[] a, long[] b, int from, int to){
+		if(to - from > PAIRWISE_BLOCK){
+			int mid = (from + to) >>> 1;
+			return pairwiseDot(a, b, from, mid) + pairwiseDot(a, b, mid, to);
+		}
+		double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = from;
+		for(; i + 3 < to; i += 4){
+			s0 += (double)a[i] * b[i];
+			s1 += (double)a[i + 1] * b[i + 1];
+			s2 += (double)a[i + 2] * b[i + 2];
+			s3 += (double)a[i + 3] * b[i + 3];
+		}
+		for(; i < to; i++){
+			s0 += (double)a[i] * b[i];
+		}
+		return (s0 + s1) + (s2 + s3);
+	}
+	
+	private static double pairwiseDot(int[] a, int[] b, int from, int to){
+		if(to - from > PAIRWISE_BLOCK){
+			int mid = (from + to) >>> 1;
+			return pairwiseDot(a, b, from, mid) + pairwiseDot(a, b, mid, to);
+		}
+		double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = from;
+		for(; i + 3 < to; i += 4){
+			s0 += (double)((long)a[i] * b[i]);
+			s1 += (double)((long)a[i + 1] * b[i + 1]);
+			s2 += (double)((long)a[i + 2] * b[i + 2]);
+			s3 += (double)((long)a[i + 3] * b[i + 3]);
+		}
+		for(; i < to; i++){
+			s0 += (double)((long)a[i] * b[i]);
+		}
+		return (s0 + s1) + (s2 + s3);
+	}
+	
+	private static double pairwiseDot(short[] a, short[] b, int from, int to){
+		if(to - from > PAIRWISE_BLOCK){
+			int mid = (from + to) >>> 1;
+			return pairwiseDot(a, b, from, mid) + pairwiseDot(a, b, mid, to);
+		}
+		double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = from;
+		for(; i + 3 < to; i += 4){
+			s0 += (double)((long)a[i] * b[i]);
+			s1 += (double)((long)a[i + 1] * b[i + 1]);
+			s2 += (double)((long)a[i + 2] * b[i + 2]);
+			s3 += (double)((long)a[i + 3] * b[i + 3]);
+		}
+		for(; i < to; i++){
+			s0 += (double)((long)a[i] * b[i]);
+		}
+		return (s0 + s1) + (s2 + s3);
+	}
+	
+	private static double pairwiseDot(byte[] a, byte[] b, int from, int to){
+		if(to - from > PAIRWISE_BLOCK){
+			int mid = (from + to) >>> 1;
+			return pairwiseDot(a, b, from, mid) + pairwiseDot(a, b, mid, to);
+		}
+		double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = from;
+		for(; i + 3 < to; i += 4){
+			s0 += (double)((long)a[i] * b[i]);
+			s1 += (double)((long)a[i + 1] * b[i + 1]);
+			s2 += (double)((long)a[i + 2] * b[i + 2]);
+			s3 += (double)((long)a[i + 3] * b[i + 3]);
+		}
+		for(; i < to; i++){
+			s0 += (double)((long)a[i] * b[i]);
+		}
+		return (s0 + s1) + (s2 + s3);
+	}
+	
+	private static double pairwiseDot(double[] a, double[] b, int from, int to){
+		if(to - from > PAIRWISE_BLOCK){
+			int mid = (from + to) >>> 1;
+			return pairwiseDot(a, b, from, mid) + pairwiseDot(a, b, mid, to);
+		}
+		double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = from;
+		for(; i + 3 < to; i += 4){
+			s0 += a[i] * b[i];
+			s1 += a[i + 1] * b[i + 1];
+			s2 += a[i + 2] * b[i + 2];
+			s3 += a[i + 3] * b[i + 3];
+		}
+		for(; i < to; i++){
+			s0 += a[i] * b[i];
+		}
+		return (s0 + s1) + (s2 + s3);
+	}
+	
+	private static double pairwiseDot(float[] a, float[] b, int from, int to){
+		if(to - from > PAIRWISE_BLOCK){
+			int mid = (from + to) >>> 1;
+			return pairwiseDot(a, b, from, mid) + pairwiseDot(a, b, mid, to);
+		}
+		double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = from;
+		for(; i + 3 < to; i += 4){
+			s0 += (double)a[i] * b[i];
+			s1 += (double)a[i + 1] * b[i + 1];
+			s2 += (double)a[i + 2] * b[i + 2];
+			s3 += (double)a[i + 3] * b[i + 3];
+		}
+		for(; i < to; i++){
+			s0 += (double)a[i] * b[i];
+		}
+		return (s0 + s1) + (s2 + s3);
+	}
+	
+	/*
+	 * Coefficients of the rational approximations of erf and erfc, from
+	 * s_erf.c of fdlibm (Sun Microsystems, freely redistributable). The
+	 * approximations have an error of less than one ulp.
+	 */
+	private static final double ERX = 8.45062911510467529297e-01;
+	private static final double EFX = 1.28379167095512586316e-01;
+	// |x| < 0.84375
+	private static final double PP0 = 1.28379167095512558561e-01;
+	private static final double PP1 = -3.25042107247001499370e-01;
+	private static final double PP2 = -2.84817495755985104766e-02;
+	private static final double PP3 = -5.77027029648944159157e-03;
+	private static final double PP4 = -2.37630166566501626084e-05;
+	private static final double QQ1 = 3.97917223959155352819e-01;
+	private static final double QQ2 = 6.50222499887672944485e-02;
+	private static final double QQ3 = 5.08130628187576562776e-03;
+	private static final double QQ4 = 1.32494738004321644526e-04;
+	private static final double QQ5 = -3.96022827877536812320e-06;
+	// 0.84375 <= |x| < 1.25
+	private static final double PA0 = -2.36211856075265944077e-03;
+	private static final double PA1 = 4.14856118683748331666e-01;
+	private static final double PA2 = -3.72207876035701323847e-01;
+	private static final double PA3 = 3.18346619901161753674e-01;
+	private static final double PA4 = -1.10894694282396677476e-01;
+	private static final double PA5 = 3.54783043256182359371e-02;
+	private static final double PA6 = -2.16637559486879084300e-03;
+	private static final double QA1 = 1.06420880400844228286e-01;
+	private static final double QA2 = 5.40397917702171048937e-01;
+	private static final double QA3 = 7.18286544141962662868e-02;
+	private static final double QA4 = 1.26171219808761642112e-01;
+	private static final double QA5 = 1.36370839120290507362e-02;
+	private static final double QA6 = 1.19844998467991074170e-02;
+	// 1.25 <= |x| < 1/0.35
+	private static final double RA0 = -9.86494403484714822705e-03;
+	private static final double RA1 = -6.93858572707181764372e-01;
+	private static final double RA2 = -1.05586262253232909814e+01;
+	private static final double RA3 = -6.23753324503260060396e+01;
+	private static final double RA4 = -1.62396669462573470355e+02;
+	private static final double RA5 = -1.84605092906711035994e+02;
+	private static final double RA6 = -8.12874355063065934246e+01;
+	private static final double RA7 = -9.81432934416914548592e+00;
+	private static final double SA1 = 1.96512716674392571292e+01;
+	private static final double SA2 = 1.37657754143519042600e+02;
+	private static final double SA3 = 4.34565877475229228821e+02;
+	private static final double SA4 = 6.45387271733267880336e+02;
+	private static final double SA5 = 4.29008140027567833386e+02;
+	private static final double SA6 = 1.08635005541779435134e+02;
+	private static final double SA7 = 6.57024977031928170135e+00;
+	private static final double SA8 = -6.04244152148580987438e-02;
+	// 1/0.35 <= |x| < 28
+	private static final double RB0 = -9.86494292470009928597e-03;
+	private static final double RB1 = -7.99283237680523006574e-01;
+	private static final double RB2 = -1.77579549177547519889e+01;
+	private static final double RB3 = -1.60636384855821916062e+02;
+	private static final double RB4 = -6.37566443368389627722e+02;
+	private static final double RB5 = -1.02509513161107724954e+03;
+	private static final double RB6 = -4.83519191608651397019e+02;
+	private static final double SB1 = 3.03380607434824582924e+01;
+	private static final double SB2 = 3.25792512996573918826e+02;
+	private static final double SB3 = 1.53672958608443695994e+03;
+	private static final double SB4 = 3.19985821950859553908e+03;
+	private static final double SB5 = 2.55305040643316442583e+03;
+	private static final double SB6 = 4.74528541206955367215e+02;
+	private static final double SB7 = -2.24409524465858183362e+01;
+	
+	/**
+	 * The error function, <i>erf</i>, (a.k.a. Gauss error function).
+	 * <br></br><br></br>
+	 * 
+	 * The function is calculated using the rational approximations of 
+	 * fdlibm, which have an error of less than one ulp. For a faster,
+	 * less precise, version see {@link #fastErf(double)}.
+	 * 
+	 * @param x The argument to erf.
+	 * @return <code>erf(x)</code>
+	 */
+	public static double erf(double x){
+		if(Double.isNaN(x)){
+			return Double.NaN;
+		}
+		double ax = Math.abs(x);
+		if(ax < 0.84375){
+			if(ax < 0x1p-28){
+				return x + EFX * x;
+			}
+			double z = x * x;
+			double r = PP0 + z * (PP1 + z * (PP2 + z * (PP3 + z * PP4)));
+			double s = 1 + z * (QQ1 + z * (QQ2 + z * (QQ3 + z * (QQ4 + z * QQ5))));
+			return x + x * (r / s);
+		} else if(ax < 1.25){
+			double s = ax - 1;
+			double p = PA0 + s * (PA1 + s * (PA2 + s * (PA3 + s * (PA4 + s * (PA5 + s * PA6)))));
+			double q = 1 + s * (QA1 + s * (QA2 + s * (QA3 + s * (QA4 + s * (QA5 + s * QA6)))));
+			return x >= 0 ? ERX + p / q : -ERX - p / q;
+		} else if(ax >= 6){
+			return x >= 0 ? 1 : -1;
+		}
+		double r = erfcTail(ax) / ax;
+		return x >= 0 ? 1 - r : r - 1;
 	}
 	
 	/**
@@ -249,19 +2116,331 @@ public final class AMath {
 	 * <code>erfc(x) = 1 - erf(x)</code>).
 	 * <br></br><br></br>
 	 * 
-	 * NOTE: This is an approximation of the <i>real</i> complementary 
-	 * error function. The maximum error of this approximation is 
-	 * estimated to be <i>1.7 * 10^-7<i>
-	 *  
-	 * @param x The argument to erfc.
-	 * @return An approximation of <code>erf(x)</code>
+	 * The function is calculated directly rather than as <code>1 - erf(x)</code>,
+	 * so it keeps its relative precision for large <b>x</b> (until it underflows
+	 * at about x = 27). The error is less than one ulp.
+	 *  
+	 * @param x The argument to erfc.
+	 * @return <code>erfc(x)</code>
+	 */
+	public static double erfc(double x){
+		if(Double.isNaN(x)){
+			return Double.NaN;
+		}
+		double ax = Math.abs(x);
+		if(ax < 0.84375){
+			if(ax < 0x1p-56){
+				return 1 - x;
+			}
+			double z = x * x;
+			double r = PP0 + z * (PP1 + z * (PP2 + z * (PP3 + z * PP4)));
+			double s = 1 + z * (QQ1 + z * (QQ2 + z * (QQ3 + z * (QQ4 + z * QQ5))));
+			double y = r / s;
+			if(x < 0.25){
+				return 1 - (x + x * y);
+			}
+			return 0.5 - (x * y + (x - 0.5));
+		} else if(ax < 1.25){
+			double s = ax - 1;
+			double p = PA0 + s * (PA1 + s * (PA2 + s * (PA3 + s * (PA4 + s * (PA5 + s * PA6)))));
+			double q = 1 + s * (QA1 + s * (QA2 + s * (QA3 + s * (QA4 + s * (QA5 + s * QA6)))));
+			return x >= 0 ? 1 - ERX - p / q : 1 + (ERX + p / q);
+		} else if(ax < 28){
+			if(x < -6){
+				return 2;
+			}
+			double r = erfcTail(ax) / ax;
+			return x > 0 ? r : 2 - r;
+		}
+		return x > 0 ? 0 : 2;
+	}
+	
+	/**
+	 * Gives <code>x * erfc(x)</code> for 1.25 &lt;= <b>x</b> &lt; 28.
+	 */
+	private static double erfcTail(double x){
+		double s = 1 / (x * x);
+		double r;
+		double q;
+		if(x < 1 / 0.35){
+			r = RA0 + s * (RA1 + s * (RA2 + s * (RA3 + s * (RA4 + s * (RA5 + s * (RA6 + s * RA7))))));
+			q = 1 + s * (SA1 + s * (SA2 + s * (SA3 + s * (SA4 + s * (SA5 + s * (SA6 + s * (SA7 + s * SA8)))))));
+		} else {
+			r = RB0 + s * (RB1 + s * (RB2 + s * (RB3 + s * (RB4 + s * (RB5 + s * RB6)))));
+			q = 1 + s * (SB1 + s * (SB2 + s * (SB3 + s * (SB4 + s * (SB5 + s * (SB6 + s * SB7))))));
+		}
+		//Splitting x into a short part z and a remainder keeps exp(-x*x) accurate.
+		double z = Double.longBitsToDouble(Double.doubleToRawLongBits(x) & 0xffffffff00000000L);
+		return Math.exp(-z * z - 0.5625) * Math.exp((z - x) * (z + x) + r / q);
+	}
+	
+	/**
+	 * A fast approximation of the error function, <i>erf</i>, for callers
+	 * that value throughput over precision.
+	 * <br></br><br></br>
+	 * 
+	 * NOTE: The maximum error of this approximation is estimated to be
+	 * <i>1.7 * 10^-7<i>
+	 * 
+	 * @param x The argument to erf.
+	 * @return An approximation of <code>erf(x)</code>
+	 * @see #erf(double)
+	 */
+	public static double fastErf(double x){
+		if(x < 0){
+			return -fastErf(-x);
+		}
+		return 1 - fastErfcPositive(x);
+	}
+	
+	/**
+	 * A fast approximation of the complementary error function, <i>erfc</i>, 
+	 * for callers that value throughput over precision.
+	 * <br></br><br></br>
+	 * 
+	 * NOTE: The maximum absolute error of this approximation is estimated to 
+	 * be <i>1.7 * 10^-7<i>
+	 * 
+	 * @param x The argument to erfc.
+	 * @return An approximation of <code>erfc(x)</code>
+	 * @see #erfc(double)
+	 */
+	public static double fastErfc(double x){
+		if(x < 0){
+			return 2 - fastErfcPositive(-x);
+		}
+		return fastErfcPositive(x);
+	}
+	
+	private static double fastErfcPositive(double x){
+		//http://en.wikipedia.org/wiki/Error_function#Approximation_with_elementary_functions
+		final double t = 1 / (1 + (0.3275911 * x));
+		final double c = t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 
+				+ t * (-1.453152027 + t * 1.061405429))));
+		return c * Math.exp(-(x*x));
+	}
+	
+	/**
+	 * The inverse error function, i.e. the <b>x</b> for which
+	 * <code>erf(x) = y</code>.
+	 * <br></br><br></br>
+	 * 
+	 * An initial approximation is refined using Halley's method on
+	 * {@link #erf(double)} (or {@link #erfc(double)} close to -1 and 1),
+	 * giving an error of a few ulps.
+	 * 
+	 * @param y The argument to the inverse error function, in [-1, 1].
+	 * @return The <b>x</b> for which <code>erf(x) = y</code>, infinity for
+	 * 			-1 and 1, and NaN if <b>y</b> is outside [-1, 1].
+	 */
+	public static double erfinv(double y){
+		if(y >= 0.5){
+			return erfcinv(1 - y);
+		} else if(y <= -0.5){
+			return -erfcinv(1 + y);
+		} else if(Double.isNaN(y)){
+			return Double.NaN;
+		} else if(y == 0){
+			return y;
+		}
+		double x = inverseNormalApproximation(0.5 * (1 + y)) * SQRT_HALF;
+		for(int i = 0; i < 2; i++){
+			double u = (erf(x) - y) / (TWO_OVER_SQRT_PI * Math.exp(-x * x));
+			x -= u / (1 + x * u);
+		}
+		return x;
+	}
+	
+	/**
+	 * The inverse complementary error function, i.e. the <b>x</b> for which
+	 * <code>erfc(x) = y</code>. Unlike <code>erfinv(1 - y)</code> this keeps
+	 * its precision for <b>y</b> close to 0.
+	 * 
+	 * @param y The argument to the inverse complementary error function, in [0, 2].
+	 * @return The <b>x</b> for which <code>erfc(x) = y</code>, infinity for 0
+	 * 			and 2, and NaN if <b>y</b> is outside [0, 2].
+	 */
+	public static double erfcinv(double y){
+		if(!(0 <= y && y <= 2)){
+			return Double.NaN;
+		} else if(y == 0){
+			return Double.POSITIVE_INFINITY;
+		} else if(y == 2){
+			return Double.NEGATIVE_INFINITY;
+		} else if(y > 1){
+			return -erfcinv(2 - y);
+		} else if(y > 0.5){
+			return erfinv(1 - y);
+		}
+		if(y < Double.MIN_NORMAL){
+			//erfc(x) and its derivative are subnormal here, so Halley's method
+			//can't improve on the asymptotic expansion 
+			//erfc(x) = exp(-x^2) / (x sqrt(pi)) * (1 - 1/(2x^2) + 3/(4x^4) - 15/(8x^6)), 
+			//solved by iteration.
+			double logY = Math.log(y);
+			double x = Math.sqrt(-logY);
+			for(int i = 0; i < 4; i++){
+				double t = 1 / (x * x);
+				double series = t * (-0.5 + t * (0.75 - 1.875 * t));
+				x = Math.sqrt(-logY - Math.log(2 * x / TWO_OVER_SQRT_PI) + Math.log1p(series));
+			}
+			return x;
+		}
+		double x = -inverseNormalApproximation(0.5 * y) * SQRT_HALF;
+		for(int i = 0; i < 2; i++){
+			double u = (erfc(x) - y) / (-TWO_OVER_SQRT_PI * Math.exp(-x * x));
+			x -= u / (1 + x * u);
+		}
+		return x;
+	}
+	
+	/**
+	 * Throws an IllegalArgumentException unless <b>p</b> is a probability,
+	 * i.e. in [0, 1].
+	 */
+	static void checkProbability(double p){
+		if(!(0 <= p && p <= 1)){
+			throw new IllegalArgumentException("p must be in the interval [0, 1]");
+		}
+	}
+	
+	/**
+	 * Gives the Cornish-Fisher approximation of the <b>p</b> quantile of 
+	 * a distribution from its mean, standard deviation and skewness; the 
+	 * normal quantile corrected for the skewness.
+	 */
+	static double cornishFisher(double p, double mean, double sd, double skewness){
+		double z = -erfcinv(2 * p) / SQRT_HALF;
+		return mean + sd * (z + skewness * (z * z - 1) / 6);
+	}
+	
+	/**
+	 * Calculates the error function for every value in an array.
+	 * <b>x</b> and <b>out</b> may be the same array.
+	 * 
+	 * @param x The arguments to erf.
+	 * @param out The array to store <code>erf(x[i])</code> in at index i.
+	 * @throws IllegalArgumentException if the lengths of the arrays does not match.
 	 */
-	public static double erfc(double x){
-		return 1 - erf(x);
+	public static void erf(double[] x, double[] out){
+		if(x.length != out.length){
+			throw new IllegalArgumentException("Input lengths does not match.");
+		}
+		for(int i = 0; i < x.length; i++){
+			out[i] = erf(x[i]);
+		}
+	}
+	
+	/**
+	 * Calculates the complementary error function for every value in an array.
+	 * <b>x</b> and <b>out</b> may be the same array.
+	 * 
+	 * @param x The arguments to erfc.
+	 * @param out The array to store <code>erfc(x[i])</code> in at index i.
+	 * @throws IllegalArgumentException if the lengths of the arrays does not match.
+	 */
+	public static void erfc(double[] x, double[] out){
+		if(x.length != out.length){
+			throw new IllegalArgumentException("Input lengths does not match.");
+		}
+		for(int i = 0; i < x.length; i++){
+			out[i] = erfc(x[i]);
+		}
+	}
+	
+	/**
+	 * Calculates the inverse error function for every value in an array.
+	 * <b>y</b> and <b>out</b> may be the same array.
+	 * 
+	 * @param y The arguments to erfinv.
+	 * @param out The array to store <code>erfinv(y[i])</code> in at index i.
+	 * @throws IllegalArgumentException if the lengths of the arrays does not match.
+	 */
+	public static void erfinv(double[] y, double[] out){
+		if(y.length != out.length){
+			throw new IllegalArgumentException("Input lengths does not match.");
+		}
+		for(int i = 0; i < y.length; i++){
+			out[i] = erfinv(y[i]);
+		}
+	}
+	
+	/**
+	 * Calculates the inverse complementary error function for every value 
+	 * in an array. <b>y</b> and <b>out</b> may be the same array.
+	 * 
+	 * @param y The arguments to erfcinv.
+	 * @param out The array to store <code>erfcinv(y[i])</code> in at index i.
+	 * @throws IllegalArgumentException if the lengths of the arrays does not match.
+	 */
+	public static void erfcinv(double[] y, double[] out){
+		if(y.length != out.length){
+			throw new IllegalArgumentException("Input lengths does not match.");
+		}
+		for(int i = 0; i < y.length; i++){
+			out[i] = erfcinv(y[i]);
+		}
+	}
+	
+	private static final double SQRT_HALF = Math.sqrt(0.5);
+	private static final double TWO_OVER_SQRT_PI = 2 / Math.sqrt(Math.PI);
+	
+	/*
+	 * Coefficients of Peter Acklam's rational approximation of the
+	 * inverse of the standard normal cumulative distribution function.
+	 */
+	private static final double[] ACKLAM_A = {-3.969683028665376e+01, 2.209460984245205e+02,
+		-2.759285104469687e+02, 1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+	private static final double[] ACKLAM_B = {-5.447609879822406e+01, 1.615858368580409e+02,
+		-1.556989798598866e+02, 6.680131188771972e+01, -1.328068155288572e+01};
+	private static final double[] ACKLAM_C = {-7.784894002430293e-03, -3.223964580411365e-01,
+		-2.400758277161838e+00, -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+	private static final double[] ACKLAM_D = {7.784695709041462e-03, 3.224671290700398e-01,
+		2.445134137142996e+00, 3.754408661907416e+00};
+	
+	/**
+	 * Acklam's approximation of the inverse of the standard normal cumulative
+	 * distribution function, with a relative error of at most 1.15e-9.
+	 * 
+	 * @param p A probability in (0, 1).
+	 * @return An approximation of the <b>x</b> for which <i>&Phi;(x) = p</i>.
+	 */
+	static double inverseNormalApproximation(double p){
+		final double[] a = ACKLAM_A, b = ACKLAM_B, c = ACKLAM_C, d = ACKLAM_D;
+		if(p < 0.02425){
+			double q = Math.sqrt(-2 * Math.log(p));
+			return (((((c[0]*q + c[1])*q + c[2])*q + c[3])*q + c[4])*q + c[5]) /
+					((((d[0]*q + d[1])*q + d[2])*q + d[3])*q + 1);
+		} else if(p > 1 - 0.02425){
+			double q = Math.sqrt(-2 * Math.log1p(-p));
+			return -(((((c[0]*q + c[1])*q + c[2])*q + c[3])*q + c[4])*q + c[5]) /
+					((((d[0]*q + d[1])*q + d[2])*q + d[3])*q + 1);
+		}
+		double q = p - 0.5;
+		double r = q * q;
+		return (((((a[0]*r + a[1])*r + a[2])*r + a[3])*r + a[4])*r + a[5])*q /
+				(((((b[0]*r + b[1])*r + b[2])*r + b[3])*r + b[4])*r + 1);
+	}
+	
+	/**
+	 * The factorials 0! to 20!, i.e. every factorial that fits in a long.
+	 */
+	private static final long[] SMALL_FACTORIALS = new long[21];
+	static {
+		SMALL_FACTORIALS[0] = 1;
+		for(int i = 1; i < SMALL_FACTORIALS.length; i++){
+			SMALL_FACTORIALS[i] = SMALL_FACTORIALS[i - 1] * i;
+		}
 	}
 	
 	/**
 	 * Calculates the factorial of <b>n</b>; (<b>n</b>!).
+	 * <br></br><br></br>
+	 * 
+	 * Factorials up to 20! are looked up in a table. Larger factorials are
+	 * calculated by splitting <b>n</b>! into its power of two and products 
+	 * of odd numbers, which are multiplied together as balanced product trees 
+	 * so that BigInteger's sub-quadratic multiplication can be used.
 	 * 
 	 * @param n - The number to calculate the factorial of.
 	 * @return <b>n</b>! as a BigInteger object.
@@ -270,20 +2449,56 @@ public final class AMath {
 	public static BigInteger factorial(int n){
 		if(n < 0){
 			throw new IllegalArgumentException("Factorial is not defined for negative numbers");
-		} else if(n == 0 || n == 1){
-			return new BigInteger("1");
-		} else {
-			BigInteger fac = new BigInteger("1");
-			for(int i = 2; i <= n; i++){
-				fac = fac.multiply(new BigInteger(""+i));
+		} else if(n < SMALL_FACTORIALS.length){
+			return BigInteger.valueOf(SMALL_FACTORIALS[n]);
+		}
+		
+		//n! = 2^(n - bitCount(n)) * product over i of (odd numbers <= n >> i),
+		//where the products for successive i share all but their largest factors.
+		BigInteger p = BigInteger.ONE;
+		BigInteger r = BigInteger.ONE;
+		long high = 1;
+		for(int i = 31 - Integer.numberOfLeadingZeros(n); i >= 0; i--){
+			long h = n >> i;
+			long low = high;
+			high = (h - 1) | 1;
+			if(high > low){
+				p = p.multiply(oddProduct(low + 2, high));
+				r = r.multiply(p);
 			}
-			return fac;
 		}
+		return r.shiftLeft(n - Integer.bitCount(n));
+	}
+	
+	/**
+	 * Calculates the factorial of <b>n</b>; (<b>n</b>!) as a long.
+	 * 
+	 * @param n - The number to calculate the factorial of.
+	 * @return <b>n</b>!
+	 * @throws IllegalArgumentException if <b>n</b> is negative.
+	 * @throws ArithmeticException if <b>n</b>! doesn't fit in a long, 
+	 * 			i.e. if <b>n</b> &gt; 20.
+	 */
+	public static long factorialLong(int n){
+		if(n < 0){
+			throw new IllegalArgumentException("Factorial is not defined for negative numbers");
+		} else if(n >= SMALL_FACTORIALS.length){
+			throw new ArithmeticException(n + "! doesn't fit in a long");
+		}
+		return SMALL_FACTORIALS[n];
 	}
 	
 	/**
 	 * Calculates the binomial coefficient, "n choose k",
 	 * for given values of n and k.
+	 * <br></br><br></br>
+	 * 
+	 * The coefficient is calculated multiplicatively in a long as long as
+	 * it fits. Larger coefficients with a small k are calculated as the 
+	 * product of n-k+1, ..., n divided by k!, and those with k comparable to
+	 * n from their prime factorization (the exponents are given by 
+	 * Legendre's formula). Either way the factors are multiplied together 
+	 * as balanced product trees.
 	 * 
 	 * @param n - The n of "n choose k".
 	 * @param k - The k of "n choose k".
@@ -292,23 +2507,612 @@ public final class AMath {
 	 */
 	public static BigInteger nChooseK(int n, int k){
 		if(n < k || k < 0){
-			return new BigInteger("0");
-		} if (n == k || k == 0) {
-			return new BigInteger("1");
+			return BigInteger.ZERO;
+		}
+		k = Math.min(k, n - k);
+		long c = multiplicativeNChooseK(n, k);
+		if(c >= 0){
+			return BigInteger.valueOf(c);
+		}
+		
+		//Sieving all primes up to n only pays off when k is comparable to n.
+		if(k < n / 16){
+			return rangeProduct(n - k + 1, n).divide(factorial(k));
+		}
+		
+		long[] factors = new long[64];
+		int count = 0;
+		long factor = 1;
+		boolean[] composite = sieve(n);
+		for(long p = 2; p <= n; p = p == 2 ? 3 : p + 2){
+			if(p > 2 && composite[(int)(p >>> 1)]){
+				continue;
+			}
+			//Legendre: the exponent of p in n! / (k! (n-k)!)
+			int e = 0;
+			for(long q = p; q <= n; q *= p){
+				e += (int)(n / q - k / q - (n - k) / q);
+			}
+			for(; e > 0; e--){
+				if(factor > Long.MAX_VALUE / p){
+					if(count == factors.length){
+						factors = Arrays.copyOf(factors, 2 * count);
+					}
+					factors[count++] = factor;
+					factor = 1;
+				}
+				factor *= p;
+			}
+		}
+		if(count == factors.length){
+			factors = Arrays.copyOf(factors, count + 1);
+		}
+		factors[count++] = factor;
+		return product(factors, 0, count);
+	}
+	
+	/**
+	 * Calculates the binomial coefficient, "n choose k",
+	 * for given values of n and k as a long.
+	 * 
+	 * @param n - The n of "n choose k".
+	 * @param k - The k of "n choose k".
+	 * @return The number of possible combinations of choosing
+	 * 			k elements from a set of n elements.
+	 * @throws ArithmeticException if the coefficient doesn't fit in a long.
+	 */
+	public static long nChooseKLong(int n, int k){
+		if(n < k || k < 0){
+			return 0;
+		}
+		long c = multiplicativeNChooseK(n, Math.min(k, n - k));
+		if(c < 0){
+			throw new ArithmeticException(n + " choose " + k + " doesn't fit in a long");
+		}
+		return c;
+	}
+	
+	/**
+	 * Gives row <b>n</b> of Pascal's triangle, i.e. the binomial coefficients
+	 * "n choose k" for all k from 0 to <b>n</b>.
+	 * 
+	 * @param n - The row to give.
+	 * @return An array of length <b>n</b> + 1 where element k is "n choose k".
+	 * @throws IllegalArgumentException if <b>n</b> is negative.
+	 * @throws ArithmeticException if the coefficients doesn't fit in a long,
+	 * 			i.e. if <b>n</b> &gt; 66.
+	 */
+	public static long[] pascalRow(int n){
+		if(n < 0){
+			throw new IllegalArgumentException("n must not be negative");
+		} else if(n > 66){
+			throw new ArithmeticException("Row " + n + " of Pascal's triangle doesn't fit in longs");
+		}
+		long[] row = new long[n + 1];
+		row[0] = 1;
+		for(int i = 1; i <= n; i++){
+			for(int k = i; k > 0; k--){
+				row[k] += row[k - 1];
+			}
+		}
+		return row;
+	}
+	
+	/**
+	 * The natural logarithm of the square root of 2 * pi.
+	 */
+	private static final double LOG_SQRT_2_PI = 0.9189385332046727417803297;
+	
+	/**
+	 * The Lanczos approximation coefficients for g = 607/128 (by Paul Godfrey).
+	 */
+	private static final double LANCZOS_G = 607.0 / 128.0;
+	private static final double[] LANCZOS = {
+		0.99999999999999709182,
+		57.156235665862923517,
+		-59.597960355475491248,
+		14.136097974741747174,
+		-0.49191381609762019978,
+		.33994649984811888699e-4,
+		.46523628927048575665e-4,
+		-.98374475304879564677e-4,
+		.15808870322491248884e-3,
+		-.21026444172410488319e-3,
+		.21743961811521264320e-3,
+		-.16431810653676389022e-3,
+		.84418223983852743293e-4,
+		-.26190838401581408670e-4,
+		.36899182659531622704e-5,
+	};
+	
+	/**
+	 * The natural logarithm of 0! to 20!, calculated from the exact factorials.
+	 */
+	private static final double[] LOG_SMALL_FACTORIALS = new double[SMALL_FACTORIALS.length];
+	static {
+		for(int i = 0; i < LOG_SMALL_FACTORIALS.length; i++){
+			LOG_SMALL_FACTORIALS[i] = Math.log(SMALL_FACTORIALS[i]);
+		}
+	}
+	
+	/**
+	 * Calculates the natural logarithm of the absolute value of the gamma
+	 * function, <i>ln |&Gamma;(x)|</i>.
+	 * <br></br><br></br>
+	 * 
+	 * The Lanczos approximation is used for small arguments and the
+	 * Stirling series for large ones, giving a relative error close to 
+	 * the precision of a double. Small positive integers are looked up 
+	 * in a table of factorials, and negative arguments are handled using 
+	 * the reflection formula.
+	 * 
+	 * @param x - The argument to the gamma function.
+	 * @return <i>ln |&Gamma;(x)|</i>, or positive infinity if <b>x</b> is 
+	 * 			zero or a negative integer.
+	 */
+	public static double logGamma(double x){
+		if(Double.isNaN(x)){
+			return Double.NaN;
+		} else if(x <= 0 && x == Math.rint(x)){
+			return Double.POSITIVE_INFINITY;
+		} else if(x == Math.rint(x) && x <= LOG_SMALL_FACTORIALS.length){
+			//Gamma(n) = (n - 1)!, exactly 0 for 1 and 2.
+			return LOG_SMALL_FACTORIALS[(int)x - 1];
+		} else if(x < 0.5){
+			//Reflection: Gamma(x) * Gamma(1 - x) = pi / sin(pi * x)
+			return Math.log(Math.PI / Math.abs(Math.sin(Math.PI * x))) - logGamma(1 - x);
+		} else if(x < 10){
+			double sum = 0;
+			for(int i = LANCZOS.length - 1; i > 0; i--){
+				sum += LANCZOS[i] / (x + i);
+			}
+			sum += LANCZOS[0];
+			double t = x + LANCZOS_G + 0.5;
+			return (x + 0.5) * Math.log(t) - t + LOG_SQRT_2_PI + Math.log(sum / x);
 		} else {
-			int max = Math.max(k, n-k);
-			int min = Math.min(k, n-k);
-			
-			BigInteger num = new BigInteger("1");
-			BigInteger denom = new BigInteger("1");
-			for(long i = max + 1; i <= n; i++){
-				num = num.multiply(new BigInteger(""+i));
+			return (x - 0.5) * Math.log(x) - x + LOG_SQRT_2_PI + stirlingCorrection(x);
+		}
+	}
+	
+	/**
+	 * Calculates the natural logarithm of the factorial of <b>n</b>; 
+	 * <i>ln(n!)</i>.
+	 * 
+	 * @param n - The number to calculate the logarithm of the factorial of.
+	 * @return <i>ln(n!)</i>
+	 * @throws IllegalArgumentException if <b>n</b> is negative.
+	 */
+	public static double logFactorial(int n){
+		if(n < 0){
+			throw new IllegalArgumentException("Factorial is not defined for negative numbers");
+		} else if(n < LOG_SMALL_FACTORIALS.length){
+			return LOG_SMALL_FACTORIALS[n];
+		}
+		return (n + 0.5) * Math.log(n) - n + LOG_SQRT_2_PI + stirlingCorrection(n);
+	}
+	
+	/**
+	 * Calculates the natural logarithm of the beta function,
+	 * <i>ln B(a, b) = ln &Gamma;(a) + ln &Gamma;(b) - ln &Gamma;(a + b)</i>,
+	 * for positive <b>a</b> and <b>b</b>. For large arguments the
+	 * cancelling terms of the sum are combined analytically so that 
+	 * the result stays accurate.
+	 * 
+	 * @param a - The first argument.
+	 * @param b - The second argument.
+	 * @return <i>ln B(a, b)</i>
+	 * @throws IllegalArgumentException if <b>a</b> or <b>b</b> isn't positive.
+	 */
+	public static double logBeta(double a, double b){
+		if(!(a > 0 && b > 0)){
+			throw new IllegalArgumentException("a and b must be greater than 0");
+		}
+		double p = Math.min(a, b);
+		double q = Math.max(a, b);
+		double r = p / (p + q);
+		if(p >= 10){
+			double corr = stirlingCorrection(p) + stirlingCorrection(q) - stirlingCorrection(p + q);
+			return -0.5 * Math.log(q) + LOG_SQRT_2_PI + corr 
+					+ (p - 0.5) * Math.log(r) + q * Math.log1p(-r);
+		} else if(q >= 10){
+			double corr = stirlingCorrection(q) - stirlingCorrection(p + q);
+			return logGamma(p) + corr + p - p * Math.log(p + q) + (q - 0.5) * Math.log1p(-r);
+		}
+		return logGamma(p) + logGamma(q) - logGamma(p + q);
+	}
+	
+	/**
+	 * Calculates the natural logarithm of the binomial coefficient,
+	 * "n choose k", without calculating the coefficient itself.
+	 * 
+	 * @param n - The n of "n choose k".
+	 * @param k - The k of "n choose k".
+	 * @return The natural logarithm of the number of possible combinations 
+	 * 			of choosing k elements from a set of n elements, or negative
+	 * 			infinity if there are no such combinations.
+	 */
+	public static double logChoose(int n, int k){
+		if(n < k || k < 0){
+			return Double.NEGATIVE_INFINITY;
+		}
+		k = Math.min(k, n - k);
+		if(k == 0){
+			return 0;
+		} else if(n < LOG_SMALL_FACTORIALS.length){
+			return Math.log(SMALL_FACTORIALS[n] / SMALL_FACTORIALS[k] / SMALL_FACTORIALS[n - k]);
+		}
+		//Stirling's formula for all three factorials with the large terms
+		//combined to k * ln(n / k) + (n - k) * ln(n / (n - k)).
+		int m = n - k;
+		return stirlingError(n) - stirlingError(k) - stirlingError(m)
+				+ k * Math.log((double)n / k) - m * Math.log1p(-(double)k / n)
+				+ 0.5 * Math.log((double)n / ((double)k * m)) - LOG_SQRT_2_PI;
+	}
+	
+	/**
+	 * Gives the error of Stirling's formula for <i>ln(n!)</i>, i.e.
+	 * <i>ln(n!) - ((n + 0.5) ln(n) - n + ln(sqrt(2 pi)))</i>.
+	 * 
+	 * @param n - A positive number.
+	 * @return The error of Stirling's formula for <b>n</b>.
+	 */
+	static double stirlingError(double n){
+		if(n >= 10){
+			return stirlingCorrection(n);
+		} else if(n == Math.rint(n)){
+			return LOG_SMALL_FACTORIALS[(int)n] - (n + 0.5) * Math.log(n) + n - LOG_SQRT_2_PI;
+		}
+		return logGamma(n + 1) - (n + 0.5) * Math.log(n) + n - LOG_SQRT_2_PI;
+	}
+	
+	/**
+	 * Calculates the deviance term <i>x ln(x / np) + np - x</i> of the
+	 * saddle point expansions of the binomial and Poisson distributions,
+	 * accurately also when <b>x</b> is close to <b>np</b> (Loader, 2000).
+	 * 
+	 * @param x - The number of successes.
+	 * @param np - The expected number of successes.
+	 * @return The deviance term.
+	 */
+	static double deviance(double x, double np){
+		if(Math.abs(x - np) < 0.1 * (x + np)){
+			double v = (x - np) / (x + np);
+			double s = (x - np) * v;
+			double ej = 2 * x * v;
+			v *= v;
+			for(int j = 1; j < 1000; j++){
+				ej *= v;
+				double s1 = s + ej / (2 * j + 1);
+				if(s1 == s){
+					return s1;
+				}
+				s = s1;
+			}
+			return s;
+		}
+		return x * Math.log(x / np) + np - x;
+	}
+	
+	/**
+	 * The relative precision the continued fractions and series of the 
+	 * incomplete gamma and beta functions are evaluated to.
+	 */
+	private static final double INCOMPLETE_EPSILON = 1e-16;
+	
+	/**
+	 * A number near the smallest double, replacing zeros in the modified 
+	 * Lentz's method.
+	 */
+	private static final double TINY = 1e-300;
+	
+	/**
+	 * Calculates the regularized lower incomplete gamma function, 
+	 * <i>P(a, x) = &gamma;(a, x) / &Gamma;(a)</i>, which is e.g. the 
+	 * cumulative density of a gamma distribution.
+	 * <br></br><br></br>
+	 * 
+	 * A series is used for <b>x</b> &lt; <b>a</b> + 1 and a continued 
+	 * fraction for Q otherwise, and the common factor <i>x<sup>a</sup> 
+	 * e<sup>-x</sup> / &Gamma;(a)</i> is calculated with the saddle point 
+	 * expansion of Loader, so the result is accurate also for large <b>a</b>.
+	 * 
+	 * @param a - The shape parameter, a positive number.
+	 * @param x - The upper limit of the integral, a non-negative number.
+	 * @return <i>P(a, x)</i>
+	 * @throws IllegalArgumentException if <b>a</b> isn't positive or <b>x</b> is negative.
+	 * @see #regularizedGammaQ(double, double)
+	 */
+	public static double regularizedGammaP(double a, double x){
+		return regularizedGamma(a, x, false);
+	}
+	
+	/**
+	 * Calculates the regularized upper incomplete gamma function, 
+	 * <i>Q(a, x) = 1 - P(a, x) = &Gamma;(a, x) / &Gamma;(a)</i>. It is 
+	 * calculated directly, so it keeps its relative precision where 
+	 * <i>P(a, x)</i> is close to 1.
+	 * 
+	 * @param a - The shape parameter, a positive number.
+	 * @param x - The lower limit of the integral, a non-negative number.
+	 * @return <i>Q(a, x)</i>
+	 * @throws IllegalArgumentException if <b>a</b> isn't positive or <b>x</b> is negative.
+	 * @see #regularizedGammaP(double, double)
+	 */
+	public static double regularizedGammaQ(double a, double x){
+		return regularizedGamma(a, x, true);
+	}
+	
+	private static double regularizedGamma(double a, double x, boolean upper){
+		if(Double.isNaN(a) || Double.isNaN(x)){
+			return Double.NaN;
+		} else if(!(a > 0) || x < 0){
+			throw new IllegalArgumentException("a must be greater than 0 and x non-negative");
+		} else if(x == 0){
+			return upper ? 1 : 0;
+		} else if(x == Double.POSITIVE_INFINITY){
+			return upper ? 0 : 1;
+		}
+		
+		//Both the series and the continued fraction need O(sqrt(a)) terms 
+		//when x is close to a.
+		long maxIterations = 1000 + (long)(20 * Math.sqrt(a));
+		if(x < a + 1){
+			//P(a, x) = x^a e^-x / Gamma(a + 1) * sum x^n / ((a + 1)...(a + n))
+			double term = 1;
+			double sum = 1;
+			for(long n = 1; n < maxIterations; n++){
+				term *= x / (a + n);
+				sum += term;
+				if(term < sum * INCOMPLETE_EPSILON){
+					break;
+				}
+			}
+			double p = poissonFactor(a, x) * sum;
+			return upper ? 1 - p : p;
+		}
+		
+		//Q(a, x) = x^a e^-x / Gamma(a) * 1/(x+1-a- 1(1-a)/(x+3-a- 2(2-a)/(x+5-a- ...)))
+		//by the modified Lentz's method.
+		double b = x + 1 - a;
+		double c = 1 / TINY;
+		double d = 1 / b;
+		double h = d;
+		for(long i = 1; i < maxIterations; i++){
+			double an = -i * (i - a);
+			b += 2;
+			d = an * d + b;
+			if(Math.abs(d) < TINY){
+				d = TINY;
+			}
+			c = b + an / c;
+			if(Math.abs(c) < TINY){
+				c = TINY;
+			}
+			d = 1 / d;
+			double delta = d * c;
+			h *= delta;
+			if(Math.abs(delta - 1) < INCOMPLETE_EPSILON){
+				break;
+			}
+		}
+		double q = a * poissonFactor(a, x) * h;
+		return upper ? q : 1 - q;
+	}
+	
+	/**
+	 * Calculates <i>x<sup>a</sup> e<sup>-x</sup> / &Gamma;(a + 1)</i>, the 
+	 * Poisson probability mass extended to real <b>a</b>, as 
+	 * <i>exp(-stirlingError(a) - deviance(a, x)) / sqrt(2 pi a)</i>.
+	 */
+	private static double poissonFactor(double a, double x){
+		return Math.exp(-stirlingError(a) - deviance(a, x)) / Math.sqrt(2 * Math.PI * a);
+	}
+	
+	/**
+	 * Calculates the regularized incomplete beta function, <i>I<sub>x</sub>(a, b)
+	 * = B(x; a, b) / B(a, b)</i>, which is e.g. the cumulative density of a 
+	 * beta distribution. <br></br><br></br>
+	 * 
+	 * The continued fraction of the function is evaluated for <b>x</b> or, 
+	 * through the symmetry <i>I<sub>x</sub>(a, b) = 1 - I<sub>1-x</sub>(b, a)</i>, 
+	 * for 1 - <b>x</b>, whichever converges faster. The common factor <i>x<sup>a</sup>
+	 * (1-x)<sup>b</sup> / B(a, b)</i> is calculated with the saddle point 
+	 * expansion of Loader, so the result is accurate also for large <b>a</b>
+	 * and <b>b</b>.
+	 * 
+	 * @param x - The upper limit of the integral, in [0, 1].
+	 * @param a - The first parameter, a positive number.
+	 * @param b - The second parameter, a positive number.
+	 * @return <i>I<sub>x</sub>(a, b)</i>
+	 * @throws IllegalArgumentException if <b>a</b> or <b>b</b> isn't positive 
+	 * 			or <b>x</b> isn't in [0, 1].
+	 */
+	public static double regularizedBeta(double x, double a, double b){
+		return regularizedBeta(x, 1 - x, a, b, false);
+	}
+	
+	/**
+	 * Calculates the regularized incomplete beta function <i>I<sub>x</sub>(a, b)</i>, 
+	 * or its complement <i>1 - I<sub>x</sub>(a, b)</i>, where 1 - <b>x</b> 
+	 * is given separately as <b>y</b> so that it can be more precise than
+	 * the difference, e.g. for binomial probabilities.
+	 */
+	static double regularizedBeta(double x, double y, double a, double b, boolean complement){
+		if(Double.isNaN(x) || Double.isNaN(a) || Double.isNaN(b)){
+			return Double.NaN;
+		} else if(!(a > 0 && b > 0) || x < 0 || x > 1){
+			throw new IllegalArgumentException("a and b must be greater than 0 and x in [0, 1]");
+		} else if(x == 0){
+			return complement ? 1 : 0;
+		} else if(y == 0){
+			return complement ? 0 : 1;
+		}
+		
+		if(x < (a + 1) / (a + b + 2)){
+			double v = betaFactor(x, y, a, b) * betaFraction(x, a, b) / a;
+			return complement ? 1 - v : v;
+		}
+		double v = betaFactor(y, x, b, a) * betaFraction(y, b, a) / b;
+		return complement ? v : 1 - v;
+	}
+	
+	/**
+	 * Calculates <i>x<sup>a</sup> y<sup>b</sup> / B(a, b)</i>, where y = 1 - x,
+	 * from the binomial probability mass extended to real <b>a</b> and <b>b</b>;
+	 * <i>1 / B(a, b) = ab / (a + b) * &Gamma;(a + b + 1) / (&Gamma;(a + 1) &Gamma;(b + 1))</i>.
+	 */
+	private static double betaFactor(double x, double y, double a, double b){
+		double n = a + b;
+		double lc = stirlingError(n) - stirlingError(a) - stirlingError(b)
+				- deviance(a, n * x) - deviance(b, n * y);
+		return a * b / n * Math.exp(lc) * Math.sqrt(n / (2 * Math.PI * a * b));
+	}
+	
+	/**
+	 * The continued fraction of the incomplete beta function, evaluated 
+	 * by the modified Lentz's method. It converges quickly for x < (a+1)/(a+b+2).
+	 */
+	private static double betaFraction(double x, double a, double b){
+		double c = 1;
+		double d = 1 - (a + b) * x / (a + 1);
+		if(Math.abs(d) < TINY){
+			d = TINY;
+		}
+		d = 1 / d;
+		double h = d;
+		//The fraction needs O(sqrt(max(a, b))) terms close to the switch point.
+		long maxIterations = 1000 + (long)(20 * Math.sqrt(Math.max(a, b)));
+		for(long m = 1; m < maxIterations; m++){
+			long m2 = 2 * m;
+			//The even step
+			double aa = m * (b - m) * x / ((a - 1 + m2) * (a + m2));
+			d = 1 + aa * d;
+			if(Math.abs(d) < TINY){
+				d = TINY;
+			}
+			c = 1 + aa / c;
+			if(Math.abs(c) < TINY){
+				c = TINY;
+			}
+			d = 1 / d;
+			h *= d * c;
+			//The odd step
+			aa = -(a + m) * (a + b + m) * x / ((a + m2) * (a + 1 + m2));
+			d = 1 + aa * d;
+			if(Math.abs(d) < TINY){
+				d = TINY;
+			}
+			c = 1 + aa / c;
+			if(Math.abs(c) < TINY){
+				c = TINY;
+			}
+			d = 1 / d;
+			double delta = d * c;
+			h *= delta;
+			if(Math.abs(delta - 1) < INCOMPLETE_EPSILON){
+				break;
+			}
+		}
+		return h;
+	}
+	
+	/**
+	 * The asymptotic (Stirling) series of <i>ln &Gamma;(x) - ((x - 0.5) ln(x) - x 
+	 * + ln(sqrt(2 pi)))</i>, accurate to double precision for <b>x</b> &gt;= 10.
+	 */
+	private static double stirlingCorrection(double x){
+		double x2 = 1 / (x * x);
+		return (1.0 / 12 - x2 * (1.0 / 360 - x2 * (1.0 / 1260 - x2 * (1.0 / 1680
+				- x2 * (1.0 / 1188 - x2 * (691.0 / 360360 - x2 / 156)))))) / x;
+	}
+	
+	/**
+	 * Calculates "n choose k" multiplicatively, reducing by the greatest 
+	 * common divisor at every step so that no intermediate result is 
+	 * larger than the final one.
+	 * 
+	 * @return "n choose k", or -1 if it doesn't fit in a long.
+	 */
+	private static long multiplicativeNChooseK(int n, int k){
+		long c = 1;
+		for(int i = 1; i <= k; i++){
+			long num = n - k + i;
+			long g = gcd(c, i);
+			long den = i / g;
+			c /= g;
+			num /= den;
+			if(c > Long.MAX_VALUE / num){
+				return -1;
 			}
-			for(long i = 1; i <= min; i++){
-				denom = denom.multiply(new BigInteger(""+i));
+			c *= num;
+		}
+		return c;
+	}
+	
+	private static long gcd(long a, long b){
+		while(b != 0){
+			long t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+	
+	/**
+	 * Gives a sieve of Eratosthenes for the odd numbers up to <b>n</b>, where
+	 * <code>composite[i]</code> is true if and only if 2i + 1 isn't a prime.
+	 */
+	private static boolean[] sieve(int n){
+		boolean[] composite = new boolean[(n >>> 1) + 1];
+		composite[0] = true;
+		for(long i = 3; i * i <= n; i += 2){
+			if(!composite[(int)(i >>> 1)]){
+				for(long j = i * i; j <= n; j += 2 * i){
+					composite[(int)(j >>> 1)] = true;
+				}
 			}
-			
-			return num.divide(denom);
 		}
+		return composite;
+	}
+	
+	/**
+	 * Calculates the product of all integers in [<b>lo</b>, <b>hi</b>],
+	 * where 0 &lt; <b>lo</b> &lt;= <b>hi</b> &lt; 2^31, as a balanced product tree.
+	 */
+	private static BigInteger rangeProduct(long lo, long hi){
+		if(lo == hi){
+			return BigInteger.valueOf(lo);
+		} else if(hi - lo == 1){
+			return BigInteger.valueOf(lo * hi);
+		}
+		long mid = lo + (hi - lo) / 2;
+		return rangeProduct(lo, mid).multiply(rangeProduct(mid + 1, hi));
+	}
+	
+	/**
+	 * Calculates the product of all odd numbers in [<b>lo</b>, <b>hi</b>],
+	 * where both <b>lo</b> and <b>hi</b> are odd, as a balanced product tree.
+	 */
+	private static BigInteger oddProduct(long lo, long hi){
+		long count = (hi - lo) / 2 + 1;
+		if(count == 1){
+			return BigInteger.valueOf(lo);
+		} else if(count == 2){
+			return BigInteger.valueOf(lo * hi);
+		}
+		long mid = lo + 2 * (count / 2);
+		return oddProduct(lo, mid - 2).multiply(oddProduct(mid, hi));
+	}
+	
+	/**
+	 * Calculates the product of <code>values[from]</code> to 
+	 * <code>values[to - 1]</code> as a balanced product tree.
+	 */
+	private static BigInteger product(long[] values, int from, int to){
+		if(to - from == 1){
+			return BigInteger.valueOf(values[from]);
+		}
+		int mid = (from + to) >>> 1;
+		return product(values, from, mid).multiply(product(values, mid, to));
 	}
 }
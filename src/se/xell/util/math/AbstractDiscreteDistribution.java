@@ -22,4 +22,55 @@ public abstract class AbstractDiscreteDistribution implements DiscreteDistributi
 			return 0;
 		}
 	}
+	
+	@Override
+	public double logProbabilityDensityOf(double x){
+		if(x == Math.round(x)){
+			return logProbabilityMassOf((int)Math.round(x));
+		} else {
+			return Double.NEGATIVE_INFINITY;
+		}
+	}
+	
+	/**
+	 * Finds the smallest integer k such that cumulativeDensityOf(k) &gt;= p,
+	 * starting from a guess. Steps doubling in length are taken from the
+	 * guess until the quantile is bracketed, which is then bisected, so a
+	 * good guess needs only a few evaluations of the cumulative density.
+	 * 
+	 * @param p The probability to calculate the quantile of, in (0, 1].
+	 * @param guess An estimate of the quantile.
+	 * @return The <b>p</b> quantile of the distribution.
+	 */
+	protected int searchQuantile(double p, int guess){
+		long lo;
+		long hi;
+		long step = 1;
+		if(cumulativeDensityOf(guess) >= p){
+			hi = guess;
+			lo = hi - step;
+			while(lo > Integer.MIN_VALUE && cumulativeDensityOf(lo) >= p){
+				hi = lo;
+				step *= 2;
+				lo = Math.max(Integer.MIN_VALUE, hi - step);
+			}
+		} else {
+			lo = guess;
+			hi = lo + step;
+			while(hi < Integer.MAX_VALUE && cumulativeDensityOf(hi) < p){
+				lo = hi;
+				step *= 2;
+				hi = Math.min(Integer.MAX_VALUE, lo + step);
+			}
+		}
+		while(hi - lo > 1){
+			long mid = lo + (hi - lo) / 2;
+			if(cumulativeDensityOf(mid) >= p){
+				hi = mid;
+			} else {
+				lo = mid;
+			}
+		}
+		return (int)hi;
+	}
 }
@@ -1,6 +1,10 @@
 package se.xell.util.math;
 
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.Random;
+import java.util.random.RandomGenerator;
+import java.util.stream.DoubleStream;
 
 /**
  * A Bernoulli distribution.
@@ -10,7 +14,7 @@ import java.util.Random;
 public class BernoulliDistribution extends AbstractDiscreteDistribution {
 
 	protected final double p;
-	protected final Random generator;
+	protected final RandomGenerator generator;
 	
 	/**
 	 * Constructor for BernoulliDistribution.
@@ -30,7 +34,7 @@ public class BernoulliDistribution extends AbstractDiscreteDistribution {
 	 * (success or failure).
 	 * @param generator A random generator for generating random numbers of this distribution.
 	 */
-	public BernoulliDistribution(double p, Random generator){
+	public BernoulliDistribution(double p, RandomGenerator generator){
 		if(p < 0 || 1 < p){
 			throw new IllegalArgumentException("p must be in the interval [0, 1]");
 		}
@@ -42,6 +46,19 @@ public class BernoulliDistribution extends AbstractDiscreteDistribution {
 		this.generator = generator;
 	}
 	
+	/**
+	 * Constructor for BernoulliDistribution taking a {@link Random}, for
+	 * code compiled against earlier versions of this class.
+	 * 
+	 * @param p The probability a Bernoulli trial to result in 1 rather than 0,
+	 * (success or failure).
+	 * @param generator A random generator for generating random numbers of this distribution.
+	 * @see #BernoulliDistribution(double, RandomGenerator)
+	 */
+	public BernoulliDistribution(double p, Random generator){
+		this(p, (RandomGenerator)generator);
+	}
+	
 	@Override
 	public double expectedValue(){
 		return p;
@@ -73,12 +90,101 @@ public class BernoulliDistribution extends AbstractDiscreteDistribution {
 		}
 	}
 	
+	@Override
+	public double quantile(double probability) {
+		AMath.checkProbability(probability);
+		return probability <= 1 - p ? 0 : 1;
+	}
+	
 	@Override
 	public double nextRandom() {
+		return nextRandomInt();
+	}
+	
+	@Override
+	public int nextRandomInt() {
 		if(generator.nextDouble() < p){
 			return 1;
 		} else {
 			return 0;
 		}
 	}
+	
+	@Override
+	public void nextRandoms(double[] out, int off, int len){
+		Objects.checkFromIndexSize(off, len, out.length);
+		final RandomGenerator r = generator;
+		final double q = p;
+		for(int i = off; i < off + len; i++){
+			out[i] = r.nextDouble() < q ? 1 : 0;
+		}
+	}
+	
+	@Override
+	public void nextRandoms(int[] out, int off, int len){
+		Objects.checkFromIndexSize(off, len, out.length);
+		final RandomGenerator r = generator;
+		final double q = p;
+		for(int i = off; i < off + len; i++){
+			out[i] = r.nextDouble() < q ? 1 : 0;
+		}
+	}
+	
+	/**
+	 * Fits a Bernoulli distribution to a sample of zeros and ones by maximum
+	 * likelihood, i.e. with the proportion of ones as the probability. 
+	 * Large samples are checked and summarized in parallel.
+	 * 
+	 * @param sample - The outcomes to fit the distribution to.
+	 * @return The Bernoulli distribution that best fits <b>sample</b>.
+	 * @throws IllegalArgumentException if <b>sample</b> is empty or has a 
+	 * 			value other than 0 and 1.
+	 */
+	public static BernoulliDistribution fit(double[] sample){
+		DoubleStream s = Arrays.stream(sample);
+		return fit(sample.length < RunningStatistics.PARALLEL_THRESHOLD ? s : s.parallel());
+	}
+	
+	/**
+	 * Fits a Bernoulli distribution to a stream of zeros and ones by maximum
+	 * likelihood. The stream is checked and summarized in parallel if it is
+	 * parallel.
+	 * 
+	 * @param sample - The outcomes to fit the distribution to.
+	 * @return The Bernoulli distribution that best fits <b>sample</b>.
+	 * @throws IllegalArgumentException if <b>sample</b> is empty or has a 
+	 * 			value other than 0 and 1.
+	 * @see SampleFile
+	 */
+	public static BernoulliDistribution fit(DoubleStream sample){
+		RunningStatistics s = RunningStatistics.of(sample.map(BernoulliDistribution::checkOutcome));
+		if(s.getCount() == 0){
+			throw new IllegalArgumentException("The sample must not be empty");
+		}
+		return new BernoulliDistribution(Math.max(0, Math.min(1, s.getMean())));
+	}
+	
+	private static double checkOutcome(double x){
+		if(x != 0 && x != 1){
+			throw new IllegalArgumentException("The sample must consist of zeros and ones");
+		}
+		return x;
+	}
+	
+	/**
+	 * Gives a copy of this distribution that generates its random values
+	 * with a given random generator.
+	 * 
+	 * @param generator The random generator of the copy.
+	 * @return A copy of this distribution using <b>generator</b>.
+	 */
+	@Override
+	public BernoulliDistribution withGenerator(RandomGenerator generator){
+		return new BernoulliDistribution(p, generator);
+	}
+	
+	@Override
+	public BernoulliDistribution split(){
+		return withGenerator(Randoms.split(generator));
+	}
 }
@@ -1,10 +1,17 @@
 package se.xell.util.math;
 
-import java.math.BigDecimal;
+import java.util.Objects;
 import java.util.Random;
+import java.util.random.RandomGenerator;
+import java.util.stream.DoubleStream;
 
 /**
- * A binomial probability distribution.
+ * A binomial probability distribution. <br></br><br></br>
+ * 
+ * Random values are generated by inversion, searching up from 0, when 
+ * n*min(p, 1-p) < 30, and otherwise by the BTPE algorithm of Kachitvichyanukul
+ * and Schmeiser. Both take constant expected time whatever n is, and 
+ * their constants are computed by the constructor.
  * 
  * @author Tobias Axell
  */
@@ -13,8 +20,30 @@ public class BinomialDistribution extends AbstractDiscreteDistribution {
 	protected final int n;
 	protected final double p;
 	
-	protected final double[] limits;
-	protected final Random randomGenerator;
+	protected final RandomGenerator randomGenerator;
+	
+	/**
+	 * The largest step between points that the batch cumulative density
+	 * takes by the recurrence of the probability mass.
+	 */
+	private static final int RECURRENCE_LIMIT = 64;
+	
+	/**
+	 * min(p, 1-p); values are generated for it and mirrored if p > 0.5.
+	 */
+	private final double r;
+	private final double q;
+	
+	/**
+	 * (1-r)^n and the cut off of the search of the inversion sampler.
+	 */
+	private final double qn;
+	private final double bound;
+	
+	/**
+	 * The BTPE sampler, or null when inversion is used.
+	 */
+	private final Btpe btpe;
 	
 	/**
 	 * Constructor for BinomialDistribution.
@@ -35,19 +64,48 @@ public class BinomialDistribution extends AbstractDiscreteDistribution {
 	 * 			rather than 0 (failure).
 	 * @param generator A random generator for generating random numbers of this distribution.
 	 */
-	public BinomialDistribution(int n, double p, Random generator){
+	public BinomialDistribution(int n, double p, RandomGenerator generator){
+		if(n < 0){
+			throw new IllegalArgumentException("n must not be negative");
+		}
+		if(!(0 <= p && p <= 1)){
+			throw new IllegalArgumentException("p must be in the interval [0, 1]");
+		}
+		if(generator == null){
+			throw new NullPointerException();
+		}
 		this.n = n;
 		this.p = p;
 		this.randomGenerator = generator;
-		this.limits = new double[n+1];
 		
-		double sum = 0.0;
-		for(int i = 0; i <= n; i++){
-			sum += probabilityOf(i);
-			limits[i] = sum;
+		this.r = Math.min(p, 1 - p);
+		this.q = 1 - r;
+		double np = n * r;
+		if(np < 30){
+			this.qn = Math.exp(n * Math.log1p(-r));
+			this.bound = Math.min(n, np + 10 * Math.sqrt(np * q + 1));
+			this.btpe = null;
+		} else {
+			this.qn = 0;
+			this.bound = 0;
+			this.btpe = new Btpe(n, r);
 		}
 	}
 	
+	/**
+	 * Constructor for BinomialDistribution taking a {@link Random}, for
+	 * code compiled against earlier versions of this class.
+	 * 
+	 * @param n The number of Bernoulli trials.
+	 * @param p The probability of each Bernoulli trial to result in 1 (success)
+	 * 			rather than 0 (failure).
+	 * @param generator A random generator for generating random numbers of this distribution.
+	 * @see #BinomialDistribution(int, double, RandomGenerator)
+	 */
+	public BinomialDistribution(int n, double p, Random generator){
+		this(n, p, (RandomGenerator)generator);
+	}
+	
 	/**
 	 * Gives the <b>n</b>, number of experiments (Bernoulli trials), 
 	 * of the binomial distribution.
@@ -79,39 +137,351 @@ public class BinomialDistribution extends AbstractDiscreteDistribution {
 	
 	@Override
 	public double probabilityMassOf(int x) {
+		return Math.exp(logProbabilityMassOf(x));
+	}
+	
+	/**
+	 * The natural logarithm of the probability mass function for the 
+	 * distribution. The logarithm is calculated directly, using the 
+	 * saddle point expansion of Loader, so it is accurate also where 
+	 * the probability mass itself underflows to 0.
+	 * 
+	 * @param x - The value to calculate the probability mass of.
+	 * @return The natural logarithm of the probability mass of x.
+	 */
+	@Override
+	public double logProbabilityMassOf(int x) {
 		if(x < 0 || x > n){
-			return 0;
+			return Double.NEGATIVE_INFINITY;
+		} else if(p == 0){
+			return x == 0 ? 0 : Double.NEGATIVE_INFINITY;
+		} else if(p == 1){
+			return x == n ? 0 : Double.NEGATIVE_INFINITY;
+		} else if(x == 0){
+			return n * Math.log1p(-p);
+		} else if(x == n){
+			return n * Math.log(p);
 		}
 		
-		BigDecimal nk = new BigDecimal(AMath.nChooseK(n, x));
-		return nk.multiply(new BigDecimal(StrictMath.pow(p, x)))
-				.multiply(new BigDecimal(StrictMath.pow(1-p, n-x))).doubleValue();
+		int y = n - x;
+		double lc = AMath.stirlingError(n) - AMath.stirlingError(x) - AMath.stirlingError(y)
+				- AMath.deviance(x, n * p) - AMath.deviance(y, n * (1 - p));
+		return lc + 0.5 * Math.log(n / (2 * Math.PI * x * (double)y));
 	}
 
 	@Override
 	public double cumulativeDensityOf(double x) {
-		double sum = 0;
-		for(int i = 0; i <= x; i++){
-			sum += probabilityMassOf(i);
+		if(x < 0){
+			return 0;
+		} else if(x >= n){
+			return 1;
+		}
+		//P(X <= k) = I_{1-p}(n - k, k + 1)
+		int k = (int)x;
+		return AMath.regularizedBeta(1 - p, p, n - k, k + 1, false);
+	}
+	
+	@Override
+	public double complementaryCumulativeDensityOf(double x) {
+		if(x < 0){
+			return 1;
+		} else if(x >= n){
+			return 0;
+		}
+		int k = (int)x;
+		return AMath.regularizedBeta(1 - p, p, n - k, k + 1, true);
+	}
+	
+	/**
+	 * Calculates the cumulative density function at several points. 
+	 * Between ascending points less than 64 apart the probability masses
+	 * are stepped by the recurrence P(k) = P(k-1) * (n-k+1)p / (k(1-p)) 
+	 * and added up; at other points the incomplete beta function is used.
+	 */
+	@Override
+	public void cumulativeDensitiesOf(int[] x, double[] out) {
+		Objects.checkFromIndexSize(0, x.length, out.length);
+		final double odds = p / (1 - p);
+		int last = 0;
+		double cdf = 0;
+		double pmf = 0;
+		for(int i = 0; i < x.length; i++){
+			int k = x[i];
+			if(pmf >= Double.MIN_NORMAL && last < k && k - last < RECURRENCE_LIMIT){
+				for(int j = last + 1; j <= Math.min(k, n); j++){
+					pmf *= (n - j + 1) * odds / j;
+					cdf += pmf;
+				}
+				cdf = Math.min(cdf, 1);
+			} else {
+				cdf = cumulativeDensityOf(k);
+				pmf = probabilityMassOf(k);
+			}
+			out[i] = cdf;
+			last = k;
+		}
+	}
+	
+	/**
+	 * The quantile function of the distribution, found by a search from 
+	 * the Cornish-Fisher approximation of the quantile, which is usually
+	 * within a step or two of it.
+	 */
+	@Override
+	public double quantile(double probability) {
+		AMath.checkProbability(probability);
+		if(probability == 0 || p == 0){
+			return 0;
+		} else if(probability == 1 || p == 1){
+			return n;
 		}
-		return sum;
+		double sd = Math.sqrt(n * p * (1 - p));
+		double guess = AMath.cornishFisher(probability, n * p, sd, (1 - 2 * p) / sd);
+		return searchQuantile(probability, (int)Math.max(0, Math.min(n, Math.round(guess))));
 	}
 	
 	@Override
 	public double nextRandom() {
-		double d = randomGenerator.nextDouble();
+		return nextRandomInt();
+	}
+	
+	@Override
+	public int nextRandomInt() {
+		return sample(randomGenerator);
+	}
+	
+	@Override
+	public void nextRandoms(double[] out, int off, int len){
+		Objects.checkFromIndexSize(off, len, out.length);
+		final RandomGenerator g = randomGenerator;
+		for(int i = off; i < off + len; i++){
+			out[i] = sample(g);
+		}
+	}
+	
+	@Override
+	public void nextRandoms(int[] out, int off, int len){
+		Objects.checkFromIndexSize(off, len, out.length);
+		final RandomGenerator g = randomGenerator;
+		for(int i = off; i < off + len; i++){
+			out[i] = sample(g);
+		}
+	}
+	
+	private int sample(RandomGenerator g) {
+		int x = btpe == null ? inversion(g) : btpe.sample(g);
+		return p > 0.5 ? n - x : x;
+	}
+	
+	/**
+	 * Inversion by sequential search from 0, using the recurrence
+	 * P(x) = P(x-1) * (n-x+1)r / (xq). The search is restarted in the 
+	 * (extremely unlikely) event that rounding carries it past the bound.
+	 */
+	private int inversion(RandomGenerator g) {
+		int x = 0;
+		double px = qn;
+		double u = g.nextDouble();
+		while(u > px){
+			x++;
+			if(x > bound){
+				x = 0;
+				px = qn;
+				u = g.nextDouble();
+			} else {
+				u -= px;
+				px = ((n - x + 1) * r * px) / (x * q);
+			}
+		}
+		return x;
+	}
+	
+	/**
+	 * The BTPE (Binomial, Triangle, Parallelogram, Exponential) algorithm of
+	 * V. Kachitvichyanukul and B. W. Schmeiser, "Binomial random variate 
+	 * generation", Communications of the ACM 31 (1988). It samples from a 
+	 * hat made of a triangle over the mode, two parallelograms and two 
+	 * exponential tails, accepting most samples in the triangle without
+	 * evaluating the probability mass.
+	 */
+	private static final class Btpe {
+		
+		final int n;
+		final double r;
+		final double q;
+		final double nrq;
+		final double m;
+		final double xm;
+		final double xl;
+		final double xr;
+		final double c;
+		final double laml;
+		final double lamr;
+		final double p1;
+		final double p2;
+		final double p3;
+		final double p4;
 		
-		for(int i = 0; i <= n; i++){
-			if(d <= limits[i]){
-				return i;
+		Btpe(int n, double r){
+			this.n = n;
+			this.r = r;
+			this.q = 1 - r;
+			this.nrq = n * r * q;
+			double fm = n * r + r;
+			this.m = Math.floor(fm);
+			this.p1 = Math.floor(2.195 * Math.sqrt(nrq) - 4.6 * q) + 0.5;
+			this.xm = m + 0.5;
+			this.xl = xm - p1;
+			this.xr = xm + p1;
+			this.c = 0.134 + 20.5 / (15.3 + m);
+			double a = (fm - xl) / (fm - xl * r);
+			this.laml = a * (1 + a / 2);
+			a = (xr - fm) / (xr * q);
+			this.lamr = a * (1 + a / 2);
+			this.p2 = p1 * (1 + 2 * c);
+			this.p3 = p2 + c / laml;
+			this.p4 = p3 + c / lamr;
+		}
+		
+		int sample(RandomGenerator g){
+			while(true){
+				double u = g.nextDouble() * p4;
+				double v = g.nextDouble();
+				double y;
+				if(u <= p1){
+					//The triangle, accepted immediately.
+					return (int)Math.floor(xm - p1 * v + u);
+				} else if(u <= p2){
+					//The parallelograms
+					double x = xl + (u - p1) / c;
+					v = v * c + 1 - Math.abs(m - x + 0.5) / p1;
+					if(v > 1){
+						continue;
+					}
+					y = Math.floor(x);
+				} else if(u <= p3){
+					//The left exponential tail
+					y = Math.floor(xl + Math.log(v) / laml);
+					if(y < 0 || v == 0){
+						continue;
+					}
+					v = v * (u - p2) * laml;
+				} else {
+					//The right exponential tail
+					y = Math.floor(xr - Math.log(v) / lamr);
+					if(y > n || v == 0){
+						continue;
+					}
+					v = v * (u - p3) * lamr;
+				}
+				if(accept(y, v)){
+					return (int)y;
+				}
 			}
 		}
 		
-		//This function should never reach this point since d always will be 
-		//smaller than 1 and limits[n] should be exactly one, however if the
-		//loop should pass the last if check the most reasonable thing to do
-		//would be to return what should have been returned in the last if
-		//check, namely n.
-		return n;
+		private boolean accept(double y, double v){
+			double k = Math.abs(y - m);
+			if(k <= 20 || k >= nrq / 2 - 1){
+				//Evaluate f(y)/f(m) by the recurrence.
+				double s = r / q;
+				double a = s * (n + 1);
+				double f = 1;
+				if(m < y){
+					for(double i = m + 1; i <= y; i++){
+						f *= a / i - s;
+					}
+				} else if(m > y){
+					for(double i = y + 1; i <= m; i++){
+						f /= a / i - s;
+					}
+				}
+				return v <= f;
+			}
+			
+			//Squeeze with bounds of log(f(y)/f(m)), and if that fails 
+			//compare to it through Stirling's formula.
+			double rho = (k / nrq) * ((k * (k / 3 + 0.625) + 0.16666666666666666) / nrq + 0.5);
+			double t = -k * k / (2 * nrq);
+			double logV = Math.log(v);
+			if(logV < t - rho){
+				return true;
+			} else if(logV > t + rho){
+				return false;
+			}
+			double x1 = y + 1;
+			double f1 = m + 1;
+			double z = n + 1 - m;
+			double w = n - y + 1;
+			return logV <= xm * Math.log(f1 / x1)
+					+ (n - m + 0.5) * Math.log(z / w)
+					+ (y - m) * Math.log(w * r / (x1 * q))
+					+ stirling(f1) + stirling(z) - stirling(x1) - stirling(w);
+		}
+		
+		/**
+		 * The first terms of the Stirling series correction of log(x!),
+		 * 1/(12x) - 1/(360x^3) + ...
+		 */
+		private static double stirling(double x){
+			double x2 = x * x;
+			return (13860 - (462 - (132 - (99 - 140 / x2) / x2) / x2) / x2) / x / 166320;
+		}
+	}
+	
+	/**
+	 * Fits a binomial distribution with a known number of trials to a 
+	 * sample of counts by maximum likelihood, i.e. with the mean count 
+	 * divided by <b>n</b> as the probability. Large samples are summarized
+	 * in parallel.
+	 * 
+	 * @param n - The number of Bernoulli trials of the distribution.
+	 * @param sample - The counts to fit the distribution to.
+	 * @return The binomial distribution that best fits <b>sample</b>.
+	 * @throws IllegalArgumentException if <b>n</b> isn't positive, or if 
+	 * 			<b>sample</b> is empty or has a value outside of [0, n].
+	 */
+	public static BinomialDistribution fit(int n, double[] sample){
+		return fit(n, RunningStatistics.ofParallel(sample));
+	}
+	
+	/**
+	 * Fits a binomial distribution with a known number of trials to a 
+	 * stream of counts by maximum likelihood. The stream is summarized in 
+	 * parallel if it is parallel.
+	 * 
+	 * @param n - The number of Bernoulli trials of the distribution.
+	 * @param sample - The counts to fit the distribution to.
+	 * @return The binomial distribution that best fits <b>sample</b>.
+	 * @throws IllegalArgumentException if <b>n</b> isn't positive, or if 
+	 * 			<b>sample</b> is empty or has a value outside of [0, n].
+	 * @see SampleFile
+	 */
+	public static BinomialDistribution fit(int n, DoubleStream sample){
+		return fit(n, RunningStatistics.of(sample));
+	}
+	
+	private static BinomialDistribution fit(int n, RunningStatistics s){
+		if(n < 1 || s.getCount() == 0 || s.getMin() < 0 || s.getMax() > n){
+			throw new IllegalArgumentException("The sample must be in [0, n] for a positive n");
+		}
+		return new BinomialDistribution(n, Math.max(0, Math.min(1, s.getMean() / n)));
+	}
+	
+	/**
+	 * Gives a copy of this distribution that generates its random values
+	 * with a given random generator.
+	 * 
+	 * @param generator The random generator of the copy.
+	 * @return A copy of this distribution using <b>generator</b>.
+	 */
+	@Override
+	public BinomialDistribution withGenerator(RandomGenerator generator){
+		return new BinomialDistribution(n, p, generator);
+	}
+	
+	@Override
+	public BinomialDistribution split(){
+		return withGenerator(Randoms.split(randomGenerator));
 	}
 }
@@ -0,0 +1,233 @@
+package se.xell.util.math;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * A fast approximation of a function on an interval [a, b] by piecewise
+ * Chebyshev polynomials. Building the approximation samples the function
+ * a number of times, after which evaluating it costs one table lookup
+ * and a short polynomial evaluation no matter how expensive the original
+ * function is.
+ * <br></br><br></br>
+ *
+ * The interval is split into a power of two of equally wide segments, so
+ * the segment of a point is found by a multiplication rather than a
+ * search. The number of segments is doubled until the approximation
+ * meets the requested maximum error at a set of test points between the
+ * interpolation nodes of every segment, and then a little further while
+ * that lowers the degree of the polynomials. The approximated function should
+ * therefore be reasonably smooth. Example:
+ * <br></br><br></br>
+ * <code>
+ * RealFunction cdf = ChebyshevApproximation.of(normal::cumulativeDensityOf, -8, 8, 1e-12);
+ * </code>
+ * <br></br><br></br>
+ *
+ * Outside of [a, b] the polynomial of the nearest segment is extrapolated,
+ * which is generally not accurate.
+ *
+ * @author Tobias Axell
+ */
+public final class ChebyshevApproximation implements RealFunction {
+
+	/**
+	 * The highest degree of the polynomial of each segment.
+	 */
+	private static final int MAX_DEGREE = 16;
+
+	/**
+	 * The largest number of segments tried before giving up.
+	 */
+	private static final int MAX_SEGMENTS = 1 << 16;
+
+	/**
+	 * Once the error is met, more segments are tried as long as they lower
+	 * the degree and the coefficients fit in this many doubles, since
+	 * shorter polynomials are faster to evaluate.
+	 */
+	private static final int TABLE_BUDGET = 4096;
+
+	private final double a;
+	private final double b;
+	private final double scale;
+	private final int segments;
+	private final int terms;
+	private final double[] coefficients;
+	private final double error;
+
+	private ChebyshevApproximation(double a, double b, int segments, int terms,
+			double[] coefficients, double error){
+		this.a = a;
+		this.b = b;
+		this.scale = segments / (b - a);
+		this.segments = segments;
+		this.terms = terms;
+		this.coefficients = coefficients;
+		this.error = error;
+	}
+
+	/**
+	 * Builds an approximation of a function on an interval.
+	 *
+	 * @param f - The function to approximate.
+	 * @param a - The start of the interval.
+	 * @param b - The end of the interval.
+	 * @param maxError - The maximum absolute error of the approximation.
+	 * @return An approximation of <b>f</b> on [<b>a</b>, <b>b</b>].
+	 * @throws IllegalArgumentException if the interval or the error isn't valid,
+	 * 			if <b>f</b> isn't finite on the interval or if the error can't
+	 * 			be met with at most 65536 segments.
+	 */
+	public static ChebyshevApproximation of(DoubleUnaryOperator f, double a, double b, double maxError){
+		if(!(a < b) || Double.isInfinite(b - a)){
+			throw new IllegalArgumentException("b must be strictly greater than a");
+		}
+		if(!(maxError > 0)){
+			throw new IllegalArgumentException("maxError must be greater than 0");
+		}
+
+		final int n = MAX_DEGREE + 1;
+		double[] nodes = new double[n];
+		for(int k = 0; k < n; k++){
+			nodes[k] = Math.cos(Math.PI * (k + 0.5) / n);
+		}
+
+		ChebyshevApproximation best = null;
+		for(int segments = 1; segments <= MAX_SEGMENTS; segments *= 2){
+			if(best != null && (segments * best.degree() > TABLE_BUDGET || best.terms <= 4)){
+				break;
+			}
+			double width = (b - a) / segments;
+			double[] full = new double[segments * n];
+			double[] values = new double[n];
+			int terms = 1;
+			for(int s = 0; s < segments; s++){
+				double left = a + s * width;
+				for(int k = 0; k < n; k++){
+					values[k] = f.applyAsDouble(left + 0.5 * (nodes[k] + 1) * width);
+					if(!Double.isFinite(values[k])){
+						throw new IllegalArgumentException("f must be finite on [a, b]");
+					}
+				}
+				for(int j = 0; j < n; j++){
+					double sum = 0;
+					for(int k = 0; k < n; k++){
+						sum += values[k] * Math.cos(Math.PI * j * (k + 0.5) / n);
+					}
+					full[s * n + j] = (j == 0 ? 1.0 : 2.0) * sum / n;
+				}
+				//Drop the trailing coefficients that are too small to matter.
+				double tail = 0;
+				int t = n;
+				while(t > 1 && tail + Math.abs(full[s * n + t - 1]) <= 0.25 * maxError){
+					tail += Math.abs(full[s * n + t - 1]);
+					t--;
+				}
+				terms = Math.max(terms, t);
+			}
+
+			double[] coefficients = new double[segments * terms];
+			for(int s = 0; s < segments; s++){
+				System.arraycopy(full, s * n, coefficients, s * terms, terms);
+			}
+			ChebyshevApproximation approximation =
+					new ChebyshevApproximation(a, b, segments, terms, coefficients, 0);
+			double error = approximation.measureError(f, n);
+			if(error <= maxError && (best == null || terms < best.terms)){
+				best = new ChebyshevApproximation(a, b, segments, terms, coefficients, error);
+			}
+		}
+		if(best != null){
+			return best;
+		}
+		throw new IllegalArgumentException("The error can't be met; f might not be smooth on [a, b]");
+	}
+
+	/**
+	 * Measures the largest error of the approximation at the points halfway
+	 * between the interpolation nodes and at the ends of every segment.
+	 */
+	private double measureError(DoubleUnaryOperator f, int n){
+		double width = (b - a) / segments;
+		double max = 0;
+		for(int s = 0; s < segments; s++){
+			double left = a + s * width;
+			for(int k = 0; k <= n; k++){
+				double t = Math.cos(Math.PI * k / n);
+				double x = Math.min(b, left + 0.5 * (t + 1) * width);
+				max = Math.max(max, Math.abs(applyAsDouble(x) - f.applyAsDouble(x)));
+			}
+		}
+		return max;
+	}
+
+	@Override
+	public double applyAsDouble(double x){
+		double u = (x - a) * scale;
+		int s = Math.min(segments - 1, Math.max(0, (int)u));
+		double t = 2 * (u - s) - 1;
+		double t2 = 2 * t;
+
+		//Clenshaw's recurrence
+		int offset = s * terms;
+		double b1 = 0;
+		double b2 = 0;
+		for(int j = terms - 1; j > 0; j--){
+			double tmp = t2 * b1 - b2 + coefficients[offset + j];
+			b2 = b1;
+			b1 = tmp;
+		}
+		return t * b1 - b2 + coefficients[offset];
+	}
+
+	/**
+	 * Gives the start of the interval of the approximation.
+	 *
+	 * @return The start of the interval.
+	 */
+	public double lowerBound(){
+		return a;
+	}
+
+	/**
+	 * Gives the end of the interval of the approximation.
+	 *
+	 * @return The end of the interval.
+	 */
+	public double upperBound(){
+		return b;
+	}
+
+	/**
+	 * Gives the number of segments of the approximation.
+	 *
+	 * @return The number of segments.
+	 */
+	public int segments(){
+		return segments;
+	}
+
+	/**
+	 * Gives the degree of the polynomial of each segment.
+	 *
+	 * @return The degree of the segment polynomials.
+	 */
+	public int degree(){
+		return terms - 1;
+	}
+
+	/**
+	 * Gives the largest error of the approximation measured when it was built.
+	 *
+	 * @return The measured maximum absolute error.
+	 */
+	public double measuredError(){
+		return error;
+	}
+
+	@Override
+	public String toString(){
+		return "ChebyshevApproximation{[" + a + ", " + b + "], segments=" + segments +
+				", degree=" + degree() + ", error=" + error + "}";
+	}
+}
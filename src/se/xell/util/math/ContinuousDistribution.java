@@ -17,4 +17,22 @@ public interface ContinuousDistribution extends ProbabilityDistribution{
 	 * 				distribution to be in the interval [a, b].
 	 */
 	public double probabilityOf(double a, double b);
+	
+	/**
+	 * The probability density function for the distribution evaluated on a
+	 * dual number, which gives the derivative of the density through 
+	 * automatic differentiation. <br></br><br></br>
+	 * 
+	 * Distributions that don't override this method get the derivative of 
+	 * the density from {@link AMath#deriveRichardson(java.util.function.DoubleUnaryOperator, double)}.
+	 * 
+	 * @param x - The value to calculate the probability density of.
+	 * @return The probability density of <b>x</b>.
+	 * @see DualNumber
+	 */
+	public default DualNumber probabilityDensityOf(DualNumber x){
+		double v = x.value();
+		return x.chain(probabilityDensityOf(v), 
+				AMath.deriveRichardson(this::probabilityDensityOf, v));
+	}
 }
@@ -1,6 +1,9 @@
 package se.xell.util.math;
 
+import java.util.Objects;
 import java.util.Random;
+import java.util.random.RandomGenerator;
+import java.util.stream.DoubleStream;
 
 /**
  * A continuous uniform distribution over an interval [a, b].
@@ -11,7 +14,7 @@ public class ContinuousUniformDistribution implements ContinuousDistribution {
 	
 	protected final double a;
 	protected final double b;
-	protected final Random randomGenerator;
+	protected final RandomGenerator randomGenerator;
 	
 	/**
 	 * Constructor for UniformDistribution.
@@ -30,9 +33,9 @@ public class ContinuousUniformDistribution implements ContinuousDistribution {
 	 * @param b The end of the interval of the new distribution.
 	 * @param generator A random generator for generating random numbers of this distribution.
 	 */
-	public ContinuousUniformDistribution(double a, double b, Random generator) {
-		if(a <= b){
-			throw new IllegalArgumentException("b must me strictly greater than a");
+	public ContinuousUniformDistribution(double a, double b, RandomGenerator generator) {
+		if(!(a < b)){
+			throw new IllegalArgumentException("b must be strictly greater than a");
 		}
 		if(generator == null){
 			throw new NullPointerException();
@@ -41,6 +44,19 @@ public class ContinuousUniformDistribution implements ContinuousDistribution {
 		this.b = b;
 		randomGenerator = generator;
 	}
+	
+	/**
+	 * Constructor for ContinuousUniformDistribution taking a {@link Random}, for
+	 * code compiled against earlier versions of this class.
+	 * 
+	 * @param a The start of the interval of the new distribution.
+	 * @param b The end of the interval of the new distribution.
+	 * @param generator A random generator for generating random numbers of this distribution.
+	 * @see #ContinuousUniformDistribution(double, double, RandomGenerator)
+	 */
+	public ContinuousUniformDistribution(double a, double b, Random generator){
+		this(a, b, (RandomGenerator)generator);
+	}
 
 	@Override
 	public double expectedValue() {
@@ -49,7 +65,7 @@ public class ContinuousUniformDistribution implements ContinuousDistribution {
 
 	@Override
 	public double variance() {
-		return (1/12) * (b-a) * (b-a);
+		return (b-a) * (b-a) / 12;
 	}
 
 	@Override
@@ -60,6 +76,11 @@ public class ContinuousUniformDistribution implements ContinuousDistribution {
 		return 0;
 	}
 
+	@Override
+	public DualNumber probabilityDensityOf(DualNumber x) {
+		return x.chain(probabilityDensityOf(x.value()), 0);
+	}
+
 	@Override
 	public double cumulativeDensityOf(double x) {
 		if(x < a){
@@ -71,10 +92,27 @@ public class ContinuousUniformDistribution implements ContinuousDistribution {
 		}
 	}
 
+	@Override
+	public double quantile(double p) {
+		AMath.checkProbability(p);
+		return a + p * (b - a);
+	}
+
 	@Override
 	public double nextRandom() {
 		return randomGenerator.nextDouble() * (b - a) + a;
 	}
+	
+	@Override
+	public void nextRandoms(double[] out, int off, int len){
+		Objects.checkFromIndexSize(off, len, out.length);
+		final RandomGenerator r = randomGenerator;
+		final double start = a;
+		final double width = b - a;
+		for(int i = off; i < off + len; i++){
+			out[i] = r.nextDouble() * width + start;
+		}
+	}
 
 	@Override
 	public double probabilityOf(double n, double m) {
@@ -92,4 +130,57 @@ public class ContinuousUniformDistribution implements ContinuousDistribution {
 			return (b - n) * probabilityDensityOf(n);
 		}
 	}
+	
+	/**
+	 * Fits a continuous uniform distribution to a sample by maximum 
+	 * likelihood, i.e. on the interval from the smallest to the largest 
+	 * value of the sample. Large samples are summarized in parallel.
+	 * 
+	 * @param sample - The sample to fit the distribution to.
+	 * @return The uniform distribution that best fits <b>sample</b>.
+	 * @throws IllegalArgumentException if <b>sample</b> doesn't contain at 
+	 * 			least two distinct values.
+	 */
+	public static ContinuousUniformDistribution fit(double[] sample){
+		return fit(RunningStatistics.ofParallel(sample));
+	}
+	
+	/**
+	 * Fits a continuous uniform distribution to a stream of values by 
+	 * maximum likelihood. The stream is summarized in parallel if it is
+	 * parallel.
+	 * 
+	 * @param sample - The values to fit the distribution to.
+	 * @return The uniform distribution that best fits <b>sample</b>.
+	 * @throws IllegalArgumentException if <b>sample</b> doesn't contain at 
+	 * 			least two distinct values.
+	 * @see SampleFile
+	 */
+	public static ContinuousUniformDistribution fit(DoubleStream sample){
+		return fit(RunningStatistics.of(sample));
+	}
+	
+	private static ContinuousUniformDistribution fit(RunningStatistics s){
+		if(!(s.getMin() < s.getMax())){
+			throw new IllegalArgumentException("The sample must contain at least two distinct values");
+		}
+		return new ContinuousUniformDistribution(s.getMin(), s.getMax());
+	}
+	
+	/**
+	 * Gives a copy of this distribution that generates its random values
+	 * with a given random generator.
+	 * 
+	 * @param generator The random generator of the copy.
+	 * @return A copy of this distribution using <b>generator</b>.
+	 */
+	@Override
+	public ContinuousUniformDistribution withGenerator(RandomGenerator generator){
+		return new ContinuousUniformDistribution(a, b, generator);
+	}
+	
+	@Override
+	public ContinuousUniformDistribution split(){
+		return withGenerator(Randoms.split(randomGenerator));
+	}
 }
@@ -0,0 +1,30 @@
+package se.xell.util.math;
+
+/**
+ * A real function that can also be evaluated on dual numbers, which
+ * gives its exact derivative through automatic differentiation.
+ *
+ * @author Tobias Axell
+ * @see DualNumber
+ */
+public interface DifferentiableFunction extends RealFunction {
+
+	/**
+	 * Evaluates the function on a dual number.
+	 *
+	 * @param x The argument to the function.
+	 * @return The value of the function at <b>x</b>, with the derivatives
+	 * 			of <b>x</b> carried through by the chain rule.
+	 */
+	public DualNumber apply(DualNumber x);
+
+	/**
+	 * Gives the exact derivative of the function at a given point.
+	 *
+	 * @param x The point to calculate the derivative at.
+	 * @return The derivative of the function at <b>x</b>.
+	 */
+	public default double derivative(double x){
+		return apply(DualNumber.variable(x)).derivative();
+	}
+}
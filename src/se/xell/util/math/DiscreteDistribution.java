@@ -1,5 +1,8 @@
 package se.xell.util.math;
 
+import java.util.Objects;
+import java.util.stream.IntStream;
+
 /**
  * An interface representing a discrete probability distribution.
  * 
@@ -15,6 +18,49 @@ public interface DiscreteDistribution extends ProbabilityDistribution{
 	 */
 	public double probabilityMassOf(int x);
 	
+	/**
+	 * The natural logarithm of the probability mass function for the 
+	 * distribution. Distributions override this to calculate the logarithm
+	 * directly, so that it doesn't underflow far out in the tails.
+	 * 
+	 * @param x - The value to calculate the log probability mass of.
+	 * @return The natural logarithm of the probability mass of x.
+	 */
+	public default double logProbabilityMassOf(int x){
+		return Math.log(probabilityMassOf(x));
+	}
+	
+	/**
+	 * Calculates the natural logarithm of the probability mass function at
+	 * several points.
+	 * 
+	 * @param x - The values to calculate the log probability mass of.
+	 * @param out - The array to store the log probability masses in, at 
+	 * 				the same indices as in <b>x</b>.
+	 * @throws IndexOutOfBoundsException if <b>out</b> is shorter than <b>x</b>.
+	 */
+	public default void logProbabilityMassesOf(int[] x, double[] out){
+		Objects.checkFromIndexSize(0, x.length, out.length);
+		for(int i = 0; i < x.length; i++){
+			out[i] = logProbabilityMassOf(x[i]);
+		}
+	}
+	
+	/**
+	 * The log-likelihood of a sample, i.e. the sum of the log probability
+	 * masses of its values.
+	 * 
+	 * @param sample - The sample to calculate the log-likelihood of.
+	 * @return The natural logarithm of the likelihood of <b>sample</b>.
+	 */
+	public default double logLikelihood(int[] sample){
+		double sum = 0;
+		for(int x : sample){
+			sum += logProbabilityMassOf(x);
+		}
+		return sum;
+	}
+	
 	/**
 	 * Calculates the probability that a random variable
 	 * in this distribution is a specified value.<br></br><br></br>
@@ -32,4 +78,59 @@ public interface DiscreteDistribution extends ProbabilityDistribution{
 	 * 				distribution to be x.
 	 */
 	public double probabilityOf(int x);
+	
+	/**
+	 * Calculates the cumulative density function at several points. 
+	 * Distributions override this to step between ascending points with 
+	 * the recurrence of their probability mass function, so the points 
+	 * should be sorted for the best performance.
+	 * 
+	 * @param x - The values to calculate the cumulative density of.
+	 * @param out - The array to store the cumulative densities in, at 
+	 * 				the same indices as in <b>x</b>.
+	 * @throws IndexOutOfBoundsException if <b>out</b> is shorter than <b>x</b>.
+	 */
+	public default void cumulativeDensitiesOf(int[] x, double[] out){
+		Objects.checkFromIndexSize(0, x.length, out.length);
+		for(int i = 0; i < x.length; i++){
+			out[i] = cumulativeDensityOf(x[i]);
+		}
+	}
+	
+	/**
+	 * Generates a random value distributed over this distribution, 
+	 * without converting it to a double.
+	 * 
+	 * @return A random value distributed over this distribution.
+	 */
+	public default int nextRandomInt(){
+		return (int)nextRandom();
+	}
+	
+	/**
+	 * Fills a part of an array with random values distributed over this
+	 * distribution. This is equivalent to calling {@link #nextRandomInt()}
+	 * <b>len</b> times.
+	 * 
+	 * @param out The array to store the random values in.
+	 * @param off The index of <b>out</b> to store the first value at.
+	 * @param len The number of values to generate.
+	 * @throws IndexOutOfBoundsException if the range is outside of <b>out</b>.
+	 */
+	public default void nextRandoms(int[] out, int off, int len){
+		Objects.checkFromIndexSize(off, len, out.length);
+		for(int i = off; i < off + len; i++){
+			out[i] = nextRandomInt();
+		}
+	}
+	
+	/**
+	 * Gives an infinite stream of random values distributed over this
+	 * distribution.
+	 * 
+	 * @return A stream of random values generated by {@link #nextRandomInt()}.
+	 */
+	public default IntStream intSamples(){
+		return IntStream.generate(this::nextRandomInt);
+	}
 }
@@ -1,6 +1,10 @@
 package se.xell.util.math;
 
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.Random;
+import java.util.random.RandomGenerator;
+import java.util.stream.DoubleStream;
 
 /**
  * A discrete uniform probability distribution  over an interval [a, b]; 
@@ -13,7 +17,7 @@ public class DiscreteUniformDistribution extends AbstractDiscreteDistribution {
 	
 	protected final int a;
 	protected final int b;
-	protected final Random randomGenerator;
+	protected final RandomGenerator randomGenerator;
 	
 	/**
 	 * Constructor for DiscreteUniformDistribution.
@@ -32,7 +36,7 @@ public class DiscreteUniformDistribution extends AbstractDiscreteDistribution {
 	 * @param b The end of the outcome space interval.
 	 * @param generator A random generator for generating random numbers of this distribution.
 	 */
-	public DiscreteUniformDistribution(int a, int b, Random generator){
+	public DiscreteUniformDistribution(int a, int b, RandomGenerator generator){
 		if(b < a){
 			throw new IllegalArgumentException("b must be greater than or equal to a");
 		}
@@ -43,18 +47,31 @@ public class DiscreteUniformDistribution extends AbstractDiscreteDistribution {
 		this.b = b;
 		this.randomGenerator = generator;
 	}
+	
+	/**
+	 * Constructor for DiscreteUniformDistribution taking a {@link Random}, for
+	 * code compiled against earlier versions of this class.
+	 * 
+	 * @param a The start of the outcome space interval.
+	 * @param b The end of the outcome space interval.
+	 * @param generator A random generator for generating random numbers of this distribution.
+	 * @see #DiscreteUniformDistribution(int, int, RandomGenerator)
+	 */
+	public DiscreteUniformDistribution(int a, int b, Random generator){
+		this(a, b, (RandomGenerator)generator);
+	}
 
 	@Override
 	public double probabilityMassOf(int x) {
 		if(a <= x && x <= b){
-			return 1 / (b - a + 1);
+			return 1.0 / (b - a + 1);
 		}
 		return 0;
 	}
 
 	@Override
 	public double expectedValue() {
-		return (a + b) / 2;
+		return (a + (double)b) / 2;
 	}
 
 	@Override
@@ -72,8 +89,111 @@ public class DiscreteUniformDistribution extends AbstractDiscreteDistribution {
 		return 1;
 	}
 	
+	@Override
+	public double quantile(double p) {
+		AMath.checkProbability(p);
+		//The smallest k with (k - a + 1) / (b - a + 1) >= p, corrected for 
+		//rounding of the product.
+		long size = (long)b - a + 1;
+		long k = a + (long)Math.ceil(p * size) - 1;
+		if(k < a){
+			return a;
+		} else if(cumulativeDensityOf(k) < p){
+			k++;
+		} else if(k > a && cumulativeDensityOf(k - 1) >= p){
+			k--;
+		}
+		return k;
+	}
+	
 	@Override
 	public double nextRandom() {
+		return nextRandomInt();
+	}
+	
+	@Override
+	public int nextRandomInt() {
 		return randomGenerator.nextInt(b - a + 1) + a;
 	}
+	
+	@Override
+	public void nextRandoms(double[] out, int off, int len){
+		Objects.checkFromIndexSize(off, len, out.length);
+		final RandomGenerator r = randomGenerator;
+		final int start = a;
+		final int size = b - a + 1;
+		for(int i = off; i < off + len; i++){
+			out[i] = r.nextInt(size) + start;
+		}
+	}
+	
+	@Override
+	public void nextRandoms(int[] out, int off, int len){
+		Objects.checkFromIndexSize(off, len, out.length);
+		final RandomGenerator r = randomGenerator;
+		final int start = a;
+		final int size = b - a + 1;
+		for(int i = off; i < off + len; i++){
+			out[i] = r.nextInt(size) + start;
+		}
+	}
+	
+	/**
+	 * Fits a discrete uniform distribution to a sample of integers by 
+	 * maximum likelihood, i.e. on the integers from the smallest to the 
+	 * largest value of the sample. Large samples are checked and summarized
+	 * in parallel.
+	 * 
+	 * @param sample - The integers to fit the distribution to.
+	 * @return The uniform distribution that best fits <b>sample</b>.
+	 * @throws IllegalArgumentException if <b>sample</b> is empty or has a 
+	 * 			value that isn't an int.
+	 */
+	public static DiscreteUniformDistribution fit(double[] sample){
+		DoubleStream s = Arrays.stream(sample);
+		return fit(sample.length < RunningStatistics.PARALLEL_THRESHOLD ? s : s.parallel());
+	}
+	
+	/**
+	 * Fits a discrete uniform distribution to a stream of integers by 
+	 * maximum likelihood. The stream is checked and summarized in parallel
+	 * if it is parallel.
+	 * 
+	 * @param sample - The integers to fit the distribution to.
+	 * @return The uniform distribution that best fits <b>sample</b>.
+	 * @throws IllegalArgumentException if <b>sample</b> is empty or has a 
+	 * 			value that isn't an int.
+	 * @see SampleFile
+	 */
+	public static DiscreteUniformDistribution fit(DoubleStream sample){
+		RunningStatistics s = RunningStatistics.of(sample.map(DiscreteUniformDistribution::checkOutcome));
+		if(s.getCount() == 0){
+			throw new IllegalArgumentException("The sample must not be empty");
+		}
+		return new DiscreteUniformDistribution((int)s.getMin(), (int)s.getMax());
+	}
+	
+	private static double checkOutcome(double x){
+		if(x != Math.rint(x) || x < Integer.MIN_VALUE || x > Integer.MAX_VALUE){
+			throw new IllegalArgumentException("The sample must consist of integers in the range of int");
+		}
+		return x;
+	}
+	
+	/**
+	 * Gives a copy of this distribution that generates its random values
+	 * with a given random generator.
+	 * 
+	 * @param generator The random generator of the copy.
+	 * @return A copy of this distribution using <b>generator</b>.
+	 */
+	@Override
+	public DiscreteUniformDistribution withGenerator(RandomGenerator generator){
+		return new DiscreteUniformDistribution(a, b, generator);
+	}
+	
+	@Override
+	public DiscreteUniformDistribution split(){
+		return withGenerator(Randoms.split(randomGenerator));
+	}
 }
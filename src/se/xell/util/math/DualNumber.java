@@ -0,0 +1,369 @@
+package se.xell.util.math;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * A dual number for forward mode automatic differentiation. A dual number
+ * holds a value together with the exact partial derivatives of that value
+ * with respect to a number of variables. Evaluating a function on dual
+ * numbers gives the value of the function and its gradient in a single
+ * pass, without the truncation error of finite differences.
+ * <br></br><br></br>
+ *
+ * Example - the derivative of <i>f(x) = x sin(x)</i> at x = 2:
+ * <br></br><br></br>
+ * <code>
+ * DualNumber x = DualNumber.variable(2);<br></br>
+ * double d = x.multiply(x.sin()).derivative();
+ * </code>
+ * <br></br><br></br>
+ *
+ * Dual numbers are immutable. A constant has no partial derivatives and
+ * can be combined with dual numbers of any number of variables.
+ *
+ * @author Tobias Axell
+ */
+public final class DualNumber {
+
+	private static final double[] NO_DERIVATIVES = new double[0];
+	private static final double TWO_OVER_SQRT_PI = 2 / Math.sqrt(Math.PI);
+
+	private final double value;
+	private final double[] derivatives;
+
+	private DualNumber(double value, double[] derivatives){
+		this.value = value;
+		this.derivatives = derivatives;
+	}
+
+	/**
+	 * Gives a constant, i.e. a dual number whose derivatives are all 0.
+	 *
+	 * @param value The value of the constant.
+	 * @return A constant dual number.
+	 */
+	public static DualNumber constant(double value){
+		return new DualNumber(value, NO_DERIVATIVES);
+	}
+
+	/**
+	 * Gives the variable of a function of one variable.
+	 *
+	 * @param value The value of the variable.
+	 * @return A dual number with derivative 1.
+	 */
+	public static DualNumber variable(double value){
+		return new DualNumber(value, new double[]{1});
+	}
+
+	/**
+	 * Gives one of the variables of a function of several variables.
+	 *
+	 * @param value The value of the variable.
+	 * @param index The index of the variable, in [0, <b>count</b>).
+	 * @param count The number of variables of the function.
+	 * @return A dual number whose partial derivative is 1 with respect to
+	 * 			itself and 0 with respect to the other variables.
+	 */
+	public static DualNumber variable(double value, int index, int count){
+		if(index < 0 || count <= index){
+			throw new IndexOutOfBoundsException("index: " + index + ", count: " + count);
+		}
+		double[] d = new double[count];
+		d[index] = 1;
+		return new DualNumber(value, d);
+	}
+
+	/**
+	 * Calculates the value and the gradient of a function of several
+	 * variables at a given point, evaluating the function once.
+	 *
+	 * @param f The function to differentiate.
+	 * @param point The point to calculate the gradient at.
+	 * @return The value of <b>f</b> at <b>point</b> with the partial
+	 * 			derivatives with respect to every coordinate of <b>point</b>.
+	 */
+	public static DualNumber gradient(Function<DualNumber[], DualNumber> f, double... point){
+		DualNumber[] x = new DualNumber[point.length];
+		for(int i = 0; i < point.length; i++){
+			x[i] = variable(point[i], i, point.length);
+		}
+		return f.apply(x);
+	}
+
+	/**
+	 * Gives the value of this dual number.
+	 *
+	 * @return The value.
+	 */
+	public double value(){
+		return value;
+	}
+
+	/**
+	 * Gives the derivative of a dual number of a single variable.
+	 *
+	 * @return The derivative with respect to the first variable, or 0
+	 * 			for a constant.
+	 */
+	public double derivative(){
+		return derivative(0);
+	}
+
+	/**
+	 * Gives the partial derivative with respect to a variable.
+	 *
+	 * @param index The index of the variable.
+	 * @return The partial derivative with respect to variable <b>index</b>,
+	 * 			or 0 for a constant.
+	 */
+	public double derivative(int index){
+		return index < derivatives.length ? derivatives[index] : 0;
+	}
+
+	/**
+	 * Gives the partial derivatives with respect to all variables.
+	 *
+	 * @return A copy of the gradient of this dual number.
+	 */
+	public double[] gradient(){
+		return Arrays.copyOf(derivatives, derivatives.length);
+	}
+
+	/**
+	 * Applies a function to this dual number by the chain rule, given the
+	 * value and the derivative of the function at the value of this dual
+	 * number. This is how functions without a dual implementation can be
+	 * used in automatic differentiation.
+	 *
+	 * @param f The value of the function at {@link #value()}.
+	 * @param df The derivative of the function at {@link #value()}.
+	 * @return <code>f(this)</code>
+	 */
+	public DualNumber chain(double f, double df){
+		if(derivatives.length == 0){
+			return new DualNumber(f, NO_DERIVATIVES);
+		}
+		double[] d = new double[derivatives.length];
+		for(int i = 0; i < d.length; i++){
+			d[i] = df * derivatives[i];
+		}
+		return new DualNumber(f, d);
+	}
+
+	/**
+	 * Gives <code>value * a + other * b</code> with the derivatives combined
+	 * the same way.
+	 */
+	private DualNumber linear(double value, double a, DualNumber other, double b){
+		double[] x = derivatives;
+		double[] y = other.derivatives;
+		if(y.length == 0){
+			return chain(value, a);
+		} else if(x.length == 0){
+			return other.chain(value, b);
+		} else if(x.length != y.length){
+			throw new IllegalArgumentException("Dual numbers of different number of variables");
+		}
+		double[] d = new double[x.length];
+		for(int i = 0; i < d.length; i++){
+			d[i] = a * x[i] + b * y[i];
+		}
+		return new DualNumber(value, d);
+	}
+
+	/**
+	 * @param other The term to add.
+	 * @return <code>this + other</code>
+	 */
+	public DualNumber add(DualNumber other){
+		return linear(value + other.value, 1, other, 1);
+	}
+
+	/**
+	 * @param c The constant to add.
+	 * @return <code>this + c</code>
+	 */
+	public DualNumber add(double c){
+		return new DualNumber(value + c, derivatives);
+	}
+
+	/**
+	 * @param other The term to subtract.
+	 * @return <code>this - other</code>
+	 */
+	public DualNumber subtract(DualNumber other){
+		return linear(value - other.value, 1, other, -1);
+	}
+
+	/**
+	 * @param c The constant to subtract.
+	 * @return <code>this - c</code>
+	 */
+	public DualNumber subtract(double c){
+		return new DualNumber(value - c, derivatives);
+	}
+
+	/**
+	 * @param other The factor to multiply with.
+	 * @return <code>this * other</code>
+	 */
+	public DualNumber multiply(DualNumber other){
+		return linear(value * other.value, other.value, other, value);
+	}
+
+	/**
+	 * @param c The constant to multiply with.
+	 * @return <code>this * c</code>
+	 */
+	public DualNumber multiply(double c){
+		return chain(value * c, c);
+	}
+
+	/**
+	 * @param other The divisor.
+	 * @return <code>this / other</code>
+	 */
+	public DualNumber divide(DualNumber other){
+		double q = value / other.value;
+		return linear(q, 1 / other.value, other, -q / other.value);
+	}
+
+	/**
+	 * @param c The constant divisor.
+	 * @return <code>this / c</code>
+	 */
+	public DualNumber divide(double c){
+		return chain(value / c, 1 / c);
+	}
+
+	/**
+	 * @return <code>-this</code>
+	 */
+	public DualNumber negate(){
+		return chain(-value, -1);
+	}
+
+	/**
+	 * @return <code>1 / this</code>
+	 */
+	public DualNumber reciprocal(){
+		double r = 1 / value;
+		return chain(r, -r * r);
+	}
+
+	/**
+	 * @return <code>this * this</code>
+	 */
+	public DualNumber square(){
+		return chain(value * value, 2 * value);
+	}
+
+	/**
+	 * @return The square root of this dual number.
+	 */
+	public DualNumber sqrt(){
+		double s = Math.sqrt(value);
+		return chain(s, 0.5 / s);
+	}
+
+	/**
+	 * @param p The exponent.
+	 * @return <code>this<sup>p</sup></code>
+	 */
+	public DualNumber pow(double p){
+		if(p == 0){
+			return constant(1);
+		}
+		return chain(Math.pow(value, p), p * Math.pow(value, p - 1));
+	}
+
+	/**
+	 * @param p The exponent.
+	 * @return <code>this<sup>p</sup></code>, for a positive value of this dual number.
+	 */
+	public DualNumber pow(DualNumber p){
+		return log().multiply(p).exp();
+	}
+
+	/**
+	 * @return <i>e</i> raised to the power of this dual number.
+	 */
+	public DualNumber exp(){
+		double e = Math.exp(value);
+		return chain(e, e);
+	}
+
+	/**
+	 * @return The natural logarithm of this dual number.
+	 */
+	public DualNumber log(){
+		return chain(Math.log(value), 1 / value);
+	}
+
+	/**
+	 * @return The natural logarithm of one plus this dual number.
+	 */
+	public DualNumber log1p(){
+		return chain(Math.log1p(value), 1 / (1 + value));
+	}
+
+	/**
+	 * @return The sine of this dual number.
+	 */
+	public DualNumber sin(){
+		return chain(Math.sin(value), Math.cos(value));
+	}
+
+	/**
+	 * @return The cosine of this dual number.
+	 */
+	public DualNumber cos(){
+		return chain(Math.cos(value), -Math.sin(value));
+	}
+
+	/**
+	 * @return The tangent of this dual number.
+	 */
+	public DualNumber tan(){
+		double t = Math.tan(value);
+		return chain(t, 1 + t * t);
+	}
+
+	/**
+	 * @return The arc tangent of this dual number.
+	 */
+	public DualNumber atan(){
+		return chain(Math.atan(value), 1 / (1 + value * value));
+	}
+
+	/**
+	 * @return The absolute value of this dual number. The derivative
+	 * 			at 0 is taken to be 0.
+	 */
+	public DualNumber abs(){
+		return chain(Math.abs(value), Math.signum(value));
+	}
+
+	/**
+	 * @return The error function of this dual number.
+	 * @see AMath#erf(double)
+	 */
+	public DualNumber erf(){
+		return chain(AMath.erf(value), TWO_OVER_SQRT_PI * Math.exp(-value * value));
+	}
+
+	/**
+	 * @return The complementary error function of this dual number.
+	 * @see AMath#erfc(double)
+	 */
+	public DualNumber erfc(){
+		return chain(AMath.erfc(value), -TWO_OVER_SQRT_PI * Math.exp(-value * value));
+	}
+
+	@Override
+	public String toString(){
+		return value + " " + Arrays.toString(derivatives);
+	}
+}
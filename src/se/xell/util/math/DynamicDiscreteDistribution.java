@@ -0,0 +1,314 @@
+package se.xell.util.math;
+
+import java.util.Objects;
+import java.util.Random;
+import java.util.random.RandomGenerator;
+
+/**
+ * A discrete probability distribution over the outcomes 0, 1, ..., n-1
+ * with probabilities proportional to weights that can be changed. 
+ * <br></br><br></br>
+ * 
+ * The weights are kept in a Fenwick tree (binary indexed tree), so that
+ * changing a weight, generating a random value and calculating the 
+ * cumulative density all take O(log n) time. Since changes are added to
+ * the sums of the tree, the tree is rebuilt from the weights after every 
+ * n changes so that rounding errors don't accumulate; this costs O(1) 
+ * amortized per change. Use {@link EmpiricalDiscreteDistribution} for 
+ * constant time sampling from weights that don't change. <br></br><br></br>
+ * 
+ * A DynamicDiscreteDistribution is not thread safe.
+ * 
+ * @author Tobias Axell
+ */
+public class DynamicDiscreteDistribution extends AbstractDiscreteDistribution {
+	
+	private final double[] weights;
+	
+	/**
+	 * The Fenwick tree, 1-indexed; tree[i] is the sum of the weights 
+	 * i - (i & -i), ..., i - 1.
+	 */
+	private final double[] tree;
+	private final int topBit;
+	private int changes;
+	
+	protected final RandomGenerator randomGenerator;
+	
+	/**
+	 * Constructor for DynamicDiscreteDistribution.
+	 * 
+	 * @param weights The initial weights of the outcomes 0, 1, ..., 
+	 * 			weights.length-1. The weights don't have to sum to 1.
+	 */
+	public DynamicDiscreteDistribution(double[] weights){
+		this(weights, new Random());
+	}
+	
+	/**
+	 * Constructor for DynamicDiscreteDistribution.
+	 * 
+	 * @param weights The initial weights of the outcomes 0, 1, ..., 
+	 * 			weights.length-1. The weights don't have to sum to 1.
+	 * @param generator A random generator for generating random numbers of this distribution.
+	 * @throws IllegalArgumentException if <b>weights</b> is empty or if any 
+	 * 			weight is negative or not finite.
+	 */
+	public DynamicDiscreteDistribution(double[] weights, RandomGenerator generator){
+		if(generator == null){
+			throw new NullPointerException();
+		}
+		if(weights.length == 0){
+			throw new IllegalArgumentException("weights must not be empty");
+		}
+		for(double w : weights){
+			checkWeight(w);
+		}
+		this.weights = weights.clone();
+		this.tree = new double[weights.length + 1];
+		this.topBit = Integer.highestOneBit(weights.length);
+		this.randomGenerator = generator;
+		rebuild();
+	}
+	
+	private static void checkWeight(double w){
+		if(!(w >= 0) || Double.isInfinite(w)){
+			throw new IllegalArgumentException("weights must be finite and non-negative");
+		}
+	}
+	
+	/**
+	 * Builds the tree from the weights in O(n) time.
+	 */
+	private void rebuild(){
+		int n = weights.length;
+		System.arraycopy(weights, 0, tree, 1, n);
+		tree[0] = 0;
+		for(int i = 1; i <= n; i++){
+			int parent = i + (i & -i);
+			if(parent <= n){
+				tree[parent] += tree[i];
+			}
+		}
+		changes = 0;
+	}
+	
+	/**
+	 * Gives the number of outcomes of the distribution.
+	 * 
+	 * @return The number of outcomes, n.
+	 */
+	public int size(){
+		return weights.length;
+	}
+	
+	/**
+	 * Gives the current weight of an outcome.
+	 * 
+	 * @param x The outcome to give the weight of.
+	 * @return The weight of <b>x</b>.
+	 * @throws IndexOutOfBoundsException if <b>x</b> is not an outcome.
+	 */
+	public double getWeight(int x){
+		return weights[x];
+	}
+	
+	/**
+	 * Changes the weight of an outcome, in O(log n) time.
+	 * 
+	 * @param x The outcome to change the weight of.
+	 * @param weight The new weight of <b>x</b>.
+	 * @throws IndexOutOfBoundsException if <b>x</b> is not an outcome.
+	 * @throws IllegalArgumentException if <b>weight</b> is negative or not finite.
+	 */
+	public void setWeight(int x, double weight){
+		Objects.checkIndex(x, weights.length);
+		checkWeight(weight);
+		double delta = weight - weights[x];
+		weights[x] = weight;
+		if(++changes >= weights.length){
+			rebuild();
+			return;
+		}
+		for(int i = x + 1; i < tree.length; i += i & -i){
+			tree[i] += delta;
+		}
+	}
+	
+	/**
+	 * Adds to the weight of an outcome, in O(log n) time.
+	 * 
+	 * @param x The outcome to change the weight of.
+	 * @param delta The amount to add to the weight of <b>x</b>.
+	 * @throws IndexOutOfBoundsException if <b>x</b> is not an outcome.
+	 * @throws IllegalArgumentException if the new weight is negative or not finite.
+	 */
+	public void addWeight(int x, double delta){
+		setWeight(x, weights[Objects.checkIndex(x, weights.length)] + delta);
+	}
+	
+	/**
+	 * Gives the sum of the weights of the outcomes 0, 1, ..., x-1.
+	 */
+	private double prefixSum(int x){
+		double sum = 0;
+		for(int i = x; i > 0; i -= i & -i){
+			sum += tree[i];
+		}
+		return sum;
+	}
+	
+	/**
+	 * Gives the sum of all weights.
+	 * 
+	 * @return The total weight.
+	 */
+	public double totalWeight(){
+		return prefixSum(weights.length);
+	}
+	
+	/**
+	 * Calculates the expected value from the weights, in O(n) time.
+	 */
+	@Override
+	public double expectedValue(){
+		double sum = 0;
+		double weighted = 0;
+		for(int i = 0; i < weights.length; i++){
+			sum += weights[i];
+			weighted += weights[i] * i;
+		}
+		return weighted / sum;
+	}
+	
+	/**
+	 * Calculates the variance from the weights, in O(n) time.
+	 */
+	@Override
+	public double variance(){
+		double mean = expectedValue();
+		double sum = 0;
+		double m2 = 0;
+		for(int i = 0; i < weights.length; i++){
+			sum += weights[i];
+			m2 += weights[i] * (i - mean) * (i - mean);
+		}
+		return m2 / sum;
+	}
+	
+	@Override
+	public double probabilityMassOf(int x){
+		if(x < 0 || x >= weights.length){
+			return 0;
+		}
+		return weights[x] / totalWeight();
+	}
+	
+	@Override
+	public double cumulativeDensityOf(double x){
+		if(x < 0){
+			return 0;
+		} else if(x >= weights.length - 1){
+			return 1;
+		}
+		return prefixSum((int)x + 1) / totalWeight();
+	}
+	
+	/**
+	 * The quantile function of the distribution, found by descending the
+	 * tree in O(log n) time.
+	 */
+	@Override
+	public double quantile(double p){
+		AMath.checkProbability(p);
+		double u = p * totalWeight();
+		int x = 0;
+		for(int step = topBit; step > 0; step >>= 1){
+			int next = x + step;
+			if(next < tree.length && tree[next] < u){
+				x = next;
+				u -= tree[next];
+			}
+		}
+		return Math.min(x, weights.length - 1);
+	}
+	
+	/**
+	 * @throws IllegalStateException if all weights are 0.
+	 */
+	@Override
+	public double nextRandom(){
+		return nextRandomInt();
+	}
+	
+	/**
+	 * @throws IllegalStateException if all weights are 0.
+	 */
+	@Override
+	public int nextRandomInt(){
+		return sample(randomGenerator, totalWeight());
+	}
+	
+	@Override
+	public void nextRandoms(double[] out, int off, int len){
+		Objects.checkFromIndexSize(off, len, out.length);
+		final RandomGenerator g = randomGenerator;
+		final double total = totalWeight();
+		for(int i = off; i < off + len; i++){
+			out[i] = sample(g, total);
+		}
+	}
+	
+	@Override
+	public void nextRandoms(int[] out, int off, int len){
+		Objects.checkFromIndexSize(off, len, out.length);
+		final RandomGenerator g = randomGenerator;
+		final double total = totalWeight();
+		for(int i = off; i < off + len; i++){
+			out[i] = sample(g, total);
+		}
+	}
+	
+	/**
+	 * Descends the tree to the outcome whose interval of the cumulative
+	 * weights contains a uniform value in [0, total).
+	 */
+	private int sample(RandomGenerator g, double total){
+		if(!(total > 0)){
+			throw new IllegalStateException("All weights are 0");
+		}
+		while(true){
+			double u = g.nextDouble() * total;
+			int x = 0;
+			for(int step = topBit; step > 0; step >>= 1){
+				int next = x + step;
+				if(next < tree.length && tree[next] <= u){
+					x = next;
+					u -= tree[next];
+				}
+			}
+			//Rounding can, very rarely, carry the search past the last 
+			//outcome or onto an outcome of weight 0.
+			if(x < weights.length && weights[x] > 0){
+				return x;
+			}
+		}
+	}
+	
+	/**
+	 * Gives a copy of this distribution, with the current weights, that 
+	 * generates its random values with a given random generator.
+	 * 
+	 * @param generator The random generator of the copy.
+	 * @return A copy of this distribution using <b>generator</b>.
+	 */
+	@Override
+	public DynamicDiscreteDistribution withGenerator(RandomGenerator generator){
+		return new DynamicDiscreteDistribution(weights, generator);
+	}
+	
+	@Override
+	public DynamicDiscreteDistribution split(){
+		return withGenerator(Randoms.split(randomGenerator));
+	}
+}
@@ -0,0 +1,273 @@
+package se.xell.util.math;
+
+import java.util.Objects;
+import java.util.Random;
+import java.util.random.RandomGenerator;
+
+/**
+ * A discrete probability distribution over the outcomes 0, 1, ..., n-1
+ * with probabilities proportional to given weights, e.g. a categorical
+ * distribution or a histogram. <br></br><br></br>
+ * 
+ * Random values are generated in constant time by the alias method, in 
+ * the numerically stable form of M. D. Vose, "A linear algorithm for 
+ * generating random numbers with a given distribution", IEEE Transactions
+ * on Software Engineering 17 (1991). The tables are built in O(n) time 
+ * by the constructor, and the cumulative density is read from a table of 
+ * prefix sums. The weights can't be changed; use 
+ * {@link DynamicDiscreteDistribution} for weights that change often.
+ * 
+ * @author Tobias Axell
+ */
+public class EmpiricalDiscreteDistribution extends AbstractDiscreteDistribution {
+	
+	private final double[] weights;
+	private final double[] cumulative;
+	private final double total;
+	
+	/**
+	 * The alias tables: outcome i is kept with probability probability[i]
+	 * and otherwise replaced by alias[i].
+	 */
+	private final double[] probability;
+	private final int[] alias;
+	
+	private final double expectedValue;
+	private final double variance;
+	
+	protected final RandomGenerator randomGenerator;
+	
+	/**
+	 * Constructor for EmpiricalDiscreteDistribution.
+	 * 
+	 * @param weights The weights of the outcomes 0, 1, ..., weights.length-1.
+	 * 			The weights don't have to sum to 1.
+	 */
+	public EmpiricalDiscreteDistribution(double[] weights){
+		this(weights, new Random());
+	}
+	
+	/**
+	 * Constructor for EmpiricalDiscreteDistribution.
+	 * 
+	 * @param weights The weights of the outcomes 0, 1, ..., weights.length-1.
+	 * 			The weights don't have to sum to 1.
+	 * @param generator A random generator for generating random numbers of this distribution.
+	 * @throws IllegalArgumentException if <b>weights</b> is empty, if any 
+	 * 			weight is negative or not finite or if all weights are 0.
+	 */
+	public EmpiricalDiscreteDistribution(double[] weights, RandomGenerator generator){
+		if(generator == null){
+			throw new NullPointerException();
+		}
+		int n = weights.length;
+		if(n == 0){
+			throw new IllegalArgumentException("weights must not be empty");
+		}
+		this.weights = weights.clone();
+		this.cumulative = new double[n];
+		double sum = 0;
+		double mean = 0;
+		for(int i = 0; i < n; i++){
+			double w = this.weights[i];
+			if(!(w >= 0) || Double.isInfinite(w)){
+				throw new IllegalArgumentException("weights must be finite and non-negative");
+			}
+			sum += w;
+			cumulative[i] = sum;
+			mean += w * i;
+		}
+		if(!(sum > 0) || Double.isInfinite(sum)){
+			throw new IllegalArgumentException("The sum of the weights must be positive and finite");
+		}
+		this.total = sum;
+		mean /= sum;
+		double m2 = 0;
+		for(int i = 0; i < n; i++){
+			m2 += this.weights[i] * (i - mean) * (i - mean);
+		}
+		this.expectedValue = mean;
+		this.variance = m2 / sum;
+		this.randomGenerator = generator;
+		
+		//Vose's algorithm: pair each outcome with less than the average 
+		//probability with one with more, which fills up the remainder.
+		this.probability = new double[n];
+		this.alias = new int[n];
+		double[] scaled = new double[n];
+		int[] small = new int[n];
+		int[] large = new int[n];
+		int smalls = 0;
+		int larges = 0;
+		for(int i = 0; i < n; i++){
+			scaled[i] = this.weights[i] * n / sum;
+			if(scaled[i] < 1){
+				small[smalls++] = i;
+			} else {
+				large[larges++] = i;
+			}
+		}
+		while(smalls > 0 && larges > 0){
+			int s = small[--smalls];
+			int l = large[--larges];
+			probability[s] = scaled[s];
+			alias[s] = l;
+			scaled[l] = (scaled[l] + scaled[s]) - 1;
+			if(scaled[l] < 1){
+				small[smalls++] = l;
+			} else {
+				large[larges++] = l;
+			}
+		}
+		//What remains should have probability 1, up to rounding.
+		while(larges > 0){
+			int l = large[--larges];
+			probability[l] = 1;
+			alias[l] = l;
+		}
+		while(smalls > 0){
+			int s = small[--smalls];
+			probability[s] = 1;
+			alias[s] = s;
+		}
+	}
+	
+	private EmpiricalDiscreteDistribution(EmpiricalDiscreteDistribution d, RandomGenerator generator){
+		if(generator == null){
+			throw new NullPointerException();
+		}
+		this.weights = d.weights;
+		this.cumulative = d.cumulative;
+		this.total = d.total;
+		this.probability = d.probability;
+		this.alias = d.alias;
+		this.expectedValue = d.expectedValue;
+		this.variance = d.variance;
+		this.randomGenerator = generator;
+	}
+	
+	/**
+	 * Gives the number of outcomes of the distribution.
+	 * 
+	 * @return The number of outcomes, n.
+	 */
+	public int size(){
+		return weights.length;
+	}
+	
+	/**
+	 * Gives the weight of an outcome, as given to the constructor.
+	 * 
+	 * @param x The outcome to give the weight of.
+	 * @return The weight of <b>x</b>.
+	 * @throws IndexOutOfBoundsException if <b>x</b> is not an outcome.
+	 */
+	public double getWeight(int x){
+		return weights[x];
+	}
+	
+	@Override
+	public double expectedValue(){
+		return expectedValue;
+	}
+	
+	@Override
+	public double variance(){
+		return variance;
+	}
+	
+	@Override
+	public double probabilityMassOf(int x){
+		if(x < 0 || x >= weights.length){
+			return 0;
+		}
+		return weights[x] / total;
+	}
+	
+	@Override
+	public double cumulativeDensityOf(double x){
+		if(x < 0){
+			return 0;
+		} else if(x >= weights.length - 1){
+			return 1;
+		}
+		return cumulative[(int)x] / total;
+	}
+	
+	/**
+	 * The quantile function of the distribution, found by binary search 
+	 * in the prefix sums of the weights.
+	 */
+	@Override
+	public double quantile(double p){
+		AMath.checkProbability(p);
+		int lo = 0;
+		int hi = weights.length - 1;
+		while(lo < hi){
+			int mid = (lo + hi) >>> 1;
+			if(cumulativeDensityOf(mid) >= p){
+				hi = mid;
+			} else {
+				lo = mid + 1;
+			}
+		}
+		return lo;
+	}
+	
+	@Override
+	public double nextRandom(){
+		return nextRandomInt();
+	}
+	
+	@Override
+	public int nextRandomInt(){
+		return sample(randomGenerator);
+	}
+	
+	@Override
+	public void nextRandoms(double[] out, int off, int len){
+		Objects.checkFromIndexSize(off, len, out.length);
+		final RandomGenerator g = randomGenerator;
+		for(int i = off; i < off + len; i++){
+			out[i] = sample(g);
+		}
+	}
+	
+	@Override
+	public void nextRandoms(int[] out, int off, int len){
+		Objects.checkFromIndexSize(off, len, out.length);
+		final RandomGenerator g = randomGenerator;
+		for(int i = off; i < off + len; i++){
+			out[i] = sample(g);
+		}
+	}
+	
+	/**
+	 * One uniform value chooses both the column of the alias table, by 
+	 * its integer part, and between the column and its alias, by its 
+	 * fractional part.
+	 */
+	private int sample(RandomGenerator g){
+		double u = g.nextDouble() * probability.length;
+		int i = (int)u;
+		return u - i < probability[i] ? i : alias[i];
+	}
+	
+	/**
+	 * Gives a copy of this distribution that generates its random values
+	 * with a given random generator. The copy shares the tables of this
+	 * distribution, so it is created in constant time.
+	 * 
+	 * @param generator The random generator of the copy.
+	 * @return A copy of this distribution using <b>generator</b>.
+	 */
+	@Override
+	public EmpiricalDiscreteDistribution withGenerator(RandomGenerator generator){
+		return new EmpiricalDiscreteDistribution(this, generator);
+	}
+	
+	@Override
+	public EmpiricalDiscreteDistribution split(){
+		return withGenerator(Randoms.split(randomGenerator));
+	}
+}
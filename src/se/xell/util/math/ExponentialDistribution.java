@@ -1,16 +1,20 @@
 package se.xell.util.math;
 
+import java.util.Objects;
 import java.util.Random;
+import java.util.random.RandomGenerator;
+import java.util.stream.DoubleStream;
 
 /**
- * An exponential probability distribution.
+ * An exponential probability distribution. Random values are generated
+ * by the ziggurat method.
  * 
  * @author Tobias Axell
  */
 public class ExponentialDistribution implements ContinuousDistribution {
 
 	protected final double lambda;
-	protected final Random randomGenerator;
+	protected final RandomGenerator randomGenerator;
 	
 	/**
 	 * Constructor for ExponentialDistribution.
@@ -27,7 +31,7 @@ public class ExponentialDistribution implements ContinuousDistribution {
 	 * @param l The lambda (intensity) of the distribution.
 	 * @param generator A random generator for generating random numbers of this distribution.
 	 */
-	public ExponentialDistribution(double l, Random generator) {
+	public ExponentialDistribution(double l, RandomGenerator generator) {
 		if(l <= 0){
 			throw new IllegalArgumentException("l must be greater than 0");
 		}
@@ -37,6 +41,18 @@ public class ExponentialDistribution implements ContinuousDistribution {
 		lambda = l;
 		randomGenerator = generator;
 	}
+	
+	/**
+	 * Constructor for ExponentialDistribution taking a {@link Random}, for
+	 * code compiled against earlier versions of this class.
+	 * 
+	 * @param l The lambda (intensity) of the distribution.
+	 * @param generator A random generator for generating random numbers of this distribution.
+	 * @see #ExponentialDistribution(double, RandomGenerator)
+	 */
+	public ExponentialDistribution(double l, Random generator){
+		this(l, (RandomGenerator)generator);
+	}
 
 	@Override
 	public double expectedValue() {
@@ -56,6 +72,64 @@ public class ExponentialDistribution implements ContinuousDistribution {
 		return lambda * Math.exp(-lambda * x);
 	}
 
+	@Override
+	public double logProbabilityDensityOf(double x) {
+		if(x < 0){
+			return Double.NEGATIVE_INFINITY;
+		}
+		return Math.log(lambda) - lambda * x;
+	}
+	
+	@Override
+	public void logProbabilityDensitiesOf(double[] x, double[] out) {
+		Objects.checkFromIndexSize(0, x.length, out.length);
+		final double l = lambda;
+		final double logLambda = Math.log(lambda);
+		for(int i = 0; i < x.length; i++){
+			out[i] = x[i] < 0 ? Double.NEGATIVE_INFINITY : logLambda - l * x[i];
+		}
+	}
+	
+	/**
+	 * The log-likelihood of a sample, n ln(lambda) - lambda * sum(x), so 
+	 * it takes no logarithm per value.
+	 */
+	@Override
+	public double logLikelihood(double[] sample) {
+		double sum = 0;
+		boolean negative = false;
+		for(double x : sample){
+			sum += x;
+			negative |= x < 0;
+		}
+		if(negative){
+			return Double.NEGATIVE_INFINITY;
+		}
+		return sample.length * Math.log(lambda) - lambda * sum;
+	}
+
+	@Override
+	public DualNumber probabilityDensityOf(DualNumber x) {
+		double p = probabilityDensityOf(x.value());
+		return x.chain(p, -lambda * p);
+	}
+	
+	/**
+	 * The probability density function of an exponential distribution,
+	 * evaluated on dual numbers. This gives the partial derivatives of the
+	 * density with respect to the point as well as the intensity.
+	 * 
+	 * @param x The value to calculate the probability density of.
+	 * @param lambda The lambda (intensity) of the distribution.
+	 * @return The probability density of <b>x</b>.
+	 */
+	public static DualNumber probabilityDensityOf(DualNumber x, DualNumber lambda) {
+		if(x.value() < 0){
+			return DualNumber.constant(0);
+		}
+		return lambda.multiply(lambda.multiply(x).negate().exp());
+	}
+
 	@Override
 	public double cumulativeDensityOf(double x) {
 		if(x < 0){
@@ -64,13 +138,89 @@ public class ExponentialDistribution implements ContinuousDistribution {
 		return 1 - Math.exp(-lambda * x);
 	}
 
+	@Override
+	public double complementaryCumulativeDensityOf(double x) {
+		if(x < 0){
+			return 1;
+		}
+		return Math.exp(-lambda * x);
+	}
+
+	@Override
+	public double quantile(double p) {
+		AMath.checkProbability(p);
+		return -Math.log1p(-p) / lambda;
+	}
+
 	@Override
 	public double nextRandom() {
-		return -Math.log(1 - randomGenerator.nextDouble()) / lambda;
+		return Ziggurat.exponential(randomGenerator) / lambda;
+	}
+	
+	@Override
+	public void nextRandoms(double[] out, int off, int len){
+		Objects.checkFromIndexSize(off, len, out.length);
+		final RandomGenerator r = randomGenerator;
+		final double scale = 1 / lambda;
+		for(int i = off; i < off + len; i++){
+			out[i] = Ziggurat.exponential(r) * scale;
+		}
 	}
 
 	@Override
 	public double probabilityOf(double a, double b) {
 		return cumulativeDensityOf(b) - cumulativeDensityOf(a);
 	}
+	
+	/**
+	 * Fits an exponential distribution to a sample by maximum likelihood,
+	 * i.e. with the rate 1 / (the mean of the sample). Large samples are
+	 * summarized in parallel.
+	 * 
+	 * @param sample - The sample to fit the distribution to.
+	 * @return The exponential distribution that best fits <b>sample</b>.
+	 * @throws IllegalArgumentException if <b>sample</b> is empty, has a 
+	 * 			negative value or only zeros.
+	 */
+	public static ExponentialDistribution fit(double[] sample){
+		return fit(RunningStatistics.ofParallel(sample));
+	}
+	
+	/**
+	 * Fits an exponential distribution to a stream of values by maximum
+	 * likelihood. The stream is summarized in parallel if it is parallel, 
+	 * e.g. when it comes from {@link SampleFile#doubles(java.nio.file.Path)}.
+	 * 
+	 * @param sample - The values to fit the distribution to.
+	 * @return The exponential distribution that best fits <b>sample</b>.
+	 * @throws IllegalArgumentException if <b>sample</b> is empty, has a 
+	 * 			negative value or only zeros.
+	 */
+	public static ExponentialDistribution fit(DoubleStream sample){
+		return fit(RunningStatistics.of(sample));
+	}
+	
+	private static ExponentialDistribution fit(RunningStatistics s){
+		if(s.getCount() == 0 || s.getMin() < 0 || !(s.getMean() > 0)){
+			throw new IllegalArgumentException("The sample must be non-negative with a positive mean");
+		}
+		return new ExponentialDistribution(1 / s.getMean());
+	}
+	
+	/**
+	 * Gives a copy of this distribution that generates its random values
+	 * with a given random generator.
+	 * 
+	 * @param generator The random generator of the copy.
+	 * @return A copy of this distribution using <b>generator</b>.
+	 */
+	@Override
+	public ExponentialDistribution withGenerator(RandomGenerator generator){
+		return new ExponentialDistribution(lambda, generator);
+	}
+	
+	@Override
+	public ExponentialDistribution split(){
+		return withGenerator(Randoms.split(randomGenerator));
+	}
 }
@@ -0,0 +1,256 @@
+package se.xell.util.math;
+
+/**
+ * A linear least squares solver, finding the <b>x</b> minimizing
+ * <i>||Ax - b||</i> for an overdetermined system of equations. Rows of
+ * the system are added in any number of steps and the system is
+ * solved once all rows have been added.
+ * <br></br><br></br>
+ *
+ * The solver never holds the whole matrix <b>A</b>. Added rows are
+ * gathered in a small column-major block that is reduced, together
+ * with the triangular factor of all earlier blocks, using Householder
+ * reflections (a sequential "tall and skinny" QR decomposition). A block
+ * is small enough to stay in the cache while it is reduced, and the
+ * normal equations are never formed, so the solution is as accurate as
+ * the conditioning of <b>A</b> allows.
+ * <br></br><br></br>
+ *
+ * This class is not thread safe.
+ *
+ * @author Tobias Axell
+ */
+public class LeastSquaresSolver {
+
+	/**
+	 * The standard number of rows gathered before they are reduced.
+	 */
+	private static final int STANDARD_BLOCK_ROWS = 512;
+
+	private final int unknowns;
+	private final int cols;
+	private final int blockRows;
+	private final int ld;
+	private final double[] work;
+	private int filled;
+	private long rows;
+
+	/**
+	 * Constructor for LeastSquaresSolver.
+	 *
+	 * @param unknowns The number of unknowns, i.e. the number of columns
+	 * 					of <b>A</b>.
+	 */
+	public LeastSquaresSolver(int unknowns){
+		if(unknowns < 1){
+			throw new IllegalArgumentException("unknowns must be greater than 0");
+		}
+		this.unknowns = unknowns;
+		this.cols = unknowns + 1;
+		this.blockRows = Math.max(STANDARD_BLOCK_ROWS, 4 * cols);
+		this.ld = cols + blockRows;
+		this.work = new double[ld * cols];
+	}
+
+	/**
+	 * Gives the number of unknowns of the system.
+	 *
+	 * @return The number of columns of <b>A</b>.
+	 */
+	public int unknowns(){
+		return unknowns;
+	}
+
+	/**
+	 * Gives the number of rows added to the system.
+	 *
+	 * @return The number of rows added.
+	 */
+	public long rows(){
+		return rows;
+	}
+
+	/**
+	 * Adds a row, <i>a<sub>0</sub>x<sub>0</sub> + a<sub>1</sub>x<sub>1</sub>
+	 * + ... = b</i>, to the system.
+	 *
+	 * @param a The coefficients of the row.
+	 * @param b The right hand side of the row.
+	 * @throws IllegalArgumentException if the length of <b>a</b> isn't the
+	 * 			number of unknowns.
+	 */
+	public void addRow(double[] a, double b){
+		if(a.length != unknowns){
+			throw new IllegalArgumentException("Input lengths does not match.");
+		}
+		int r = nextRow();
+		for(int j = 0; j < unknowns; j++){
+			work[j * ld + r] = a[j];
+		}
+		work[unknowns * ld + r] = b;
+	}
+
+	/**
+	 * Adds several rows to the system.
+	 *
+	 * @param a The coefficients of the rows in column-major order, i.e.
+	 * 			the coefficient of unknown <i>j</i> in row <i>i</i> is
+	 * 			<code>a[j * rows + i]</code>.
+	 * @param b The right hand sides of the rows.
+	 * @param rows The number of rows to add.
+	 * @throws IllegalArgumentException if the lengths of <b>a</b> or <b>b</b>
+	 * 			doesn't match the number of rows.
+	 */
+	public void addRows(double[] a, double[] b, int rows){
+		if(a.length < (long)rows * unknowns || b.length < rows){
+			throw new IllegalArgumentException("Input lengths does not match.");
+		}
+		int i = 0;
+		while(i < rows){
+			if(filled == blockRows){
+				reduce();
+			}
+			int n = Math.min(rows - i, blockRows - filled);
+			int r = cols + filled;
+			for(int j = 0; j < unknowns; j++){
+				System.arraycopy(a, j * rows + i, work, j * ld + r, n);
+			}
+			System.arraycopy(b, i, work, unknowns * ld + r, n);
+			filled += n;
+			this.rows += n;
+			i += n;
+		}
+	}
+
+	/**
+	 * Gives the index of a new, not yet initialized, row in the work
+	 * block, reducing the block first if it is full. The caller must
+	 * set all <code>unknowns + 1</code> columns of the row.
+	 */
+	int nextRow(){
+		if(filled == blockRows){
+			reduce();
+		}
+		rows++;
+		return cols + filled++;
+	}
+
+	/**
+	 * Gives the column-major work block that {@link #nextRow()} indexes.
+	 */
+	double[] work(){
+		return work;
+	}
+
+	/**
+	 * Gives the leading dimension (column stride) of the work block.
+	 */
+	int leadingDimension(){
+		return ld;
+	}
+
+	/**
+	 * Solves the system in the least squares sense.
+	 *
+	 * @return The <b>x</b> minimizing <i>||Ax - b||</i>.
+	 * @throws IllegalStateException if fewer rows than unknowns has been added.
+	 * @throws ArithmeticException if <b>A</b> is rank deficient.
+	 */
+	public double[] solve(){
+		if(rows < unknowns){
+			throw new IllegalStateException("At least as many rows as unknowns are needed");
+		}
+		reduce();
+
+		double maxDiagonal = 0;
+		for(int k = 0; k < unknowns; k++){
+			maxDiagonal = Math.max(maxDiagonal, Math.abs(work[k * ld + k]));
+		}
+		double tolerance = maxDiagonal * unknowns * Math.ulp(1.0);
+
+		double[] x = new double[unknowns];
+		for(int k = unknowns - 1; k >= 0; k--){
+			double r = work[k * ld + k];
+			if(Math.abs(r) <= tolerance){
+				throw new ArithmeticException("The system is rank deficient");
+			}
+			double s = work[unknowns * ld + k];
+			for(int j = k + 1; j < unknowns; j++){
+				s -= work[j * ld + k] * x[j];
+			}
+			x[k] = s / r;
+		}
+		return x;
+	}
+
+	/**
+	 * Gives the norm of the residual, <i>||Ax - b||</i>, of the least
+	 * squares solution.
+	 *
+	 * @return The norm of the residual of the solution.
+	 */
+	public double residualNorm(){
+		reduce();
+		return Math.abs(work[unknowns * ld + unknowns]);
+	}
+
+	/**
+	 * Reduces the triangular factor and the gathered rows to a new
+	 * triangular factor in the top rows of the work block.
+	 */
+	private void reduce(){
+		if(filled == 0){
+			return;
+		}
+		householder(work, ld, cols + filled, cols);
+		filled = 0;
+	}
+
+	/**
+	 * Overwrites the top <b>n</b> rows of the <b>m</b> x <b>n</b>
+	 * column-major matrix <b>a</b> with the <i>R</i> of its QR
+	 * decomposition and zeros the rest.
+	 */
+	private static void householder(double[] a, int ld, int m, int n){
+		for(int k = 0; k < n && k < m; k++){
+			int ck = k * ld;
+
+			double scale = 0;
+			for(int i = k; i < m; i++){
+				scale = Math.max(scale, Math.abs(a[ck + i]));
+			}
+			if(scale == 0){
+				continue;
+			}
+			double norm2 = 0;
+			for(int i = k; i < m; i++){
+				double v = a[ck + i] / scale;
+				norm2 += v * v;
+			}
+			double norm = scale * Math.sqrt(norm2);
+
+			double akk = a[ck + k];
+			double alpha = akk > 0 ? -norm : norm;
+			//v = a[k..m, k] - alpha * e_k, v'v = 2 * (norm^2 - akk * alpha)
+			a[ck + k] = akk - alpha;
+			double vtv = 2 * norm * (norm + Math.abs(akk));
+
+			for(int j = k + 1; j < n; j++){
+				int cj = j * ld;
+				double s = 0;
+				for(int i = k; i < m; i++){
+					s += a[ck + i] * a[cj + i];
+				}
+				double f = 2 * s / vtv;
+				for(int i = k; i < m; i++){
+					a[cj + i] -= f * a[ck + i];
+				}
+			}
+
+			a[ck + k] = alpha;
+			for(int i = k + 1; i < m; i++){
+				a[ck + i] = 0;
+			}
+		}
+	}
+}
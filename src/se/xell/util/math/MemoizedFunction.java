@@ -0,0 +1,271 @@
+package se.xell.util.math;
+
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+
+import se.xell.junky.Function1;
+
+/**
+ * A decorator caching the values of an expensive function, so that
+ * evaluating it at the same point again is a table lookup. Arguments are
+ * compared by their raw bits, so e.g. 0.0 and -0.0 are different keys.
+ * <br></br><br></br>
+ *
+ * The cache holds at most a fixed number of values. It is split into
+ * independently locked stripes, each a primitive open addressing hash
+ * table (linear probing, so nothing is boxed or allocated per lookup)
+ * from which values are evicted with the CLOCK (second chance)
+ * approximation of least recently used.
+ * <br></br><br></br>
+ *
+ * A MemoizedFunction is thread safe if the decorated function is. The
+ * decorated function is called outside of the locks, so two threads
+ * missing on the same argument at the same time may both evaluate it.
+ *
+ * @author Tobias Axell
+ */
+public class MemoizedFunction implements RealFunction {
+
+	private static final int MAX_STRIPES = 16;
+
+	private final DoubleUnaryOperator f;
+	private final Stripe[] stripes;
+	private final int stripeShift;
+
+	/**
+	 * Constructor for MemoizedFunction.
+	 *
+	 * @param f The function to cache the values of.
+	 * @param capacity The maximum number of values to cache.
+	 */
+	public MemoizedFunction(DoubleUnaryOperator f, int capacity){
+		if(f == null){
+			throw new NullPointerException();
+		}
+		if(capacity < 1){
+			throw new IllegalArgumentException("capacity must be greater than 0");
+		}
+		this.f = f;
+		int n = Integer.highestOneBit(Math.min(MAX_STRIPES, Math.max(1, capacity / 64)));
+		this.stripes = new Stripe[n];
+		this.stripeShift = 64 - Integer.numberOfTrailingZeros(n);
+		int perStripe = (capacity + n - 1) / n;
+		for(int i = 0; i < n; i++){
+			stripes[i] = new Stripe(perStripe);
+		}
+	}
+
+	/**
+	 * Creates a MemoizedFunction caching the values of a boxed function.
+	 *
+	 * @param f The function to cache the values of.
+	 * @param capacity The maximum number of values to cache.
+	 * @return A caching decorator of <b>f</b>.
+	 */
+	public static MemoizedFunction of(Function1<Double, Double> f, int capacity){
+		return new MemoizedFunction(RealFunction.of(f), capacity);
+	}
+
+	@Override
+	public double applyAsDouble(double x){
+		long key = Double.doubleToRawLongBits(x);
+		long hash = mix(key);
+		//The high bits choose the stripe and the low bits the slot.
+		Stripe stripe = stripes.length == 1 ? stripes[0] : stripes[(int)(hash >>> stripeShift)];
+		int h = (int)hash;
+
+		synchronized(stripe){
+			int i = stripe.find(key, h);
+			if(i >= 0){
+				stripe.hits++;
+				stripe.state[i] = Stripe.REFERENCED;
+				return stripe.values[i];
+			}
+		}
+		double y = f.applyAsDouble(x);
+		synchronized(stripe){
+			stripe.misses++;
+			if(stripe.find(key, h) < 0){
+				stripe.insert(key, h, y);
+			}
+		}
+		return y;
+	}
+
+	/**
+	 * Gives the number of evaluations answered from the cache.
+	 *
+	 * @return The number of cache hits.
+	 */
+	public long getHits(){
+		long hits = 0;
+		for(Stripe s : stripes){
+			synchronized(s){
+				hits += s.hits;
+			}
+		}
+		return hits;
+	}
+
+	/**
+	 * Gives the number of evaluations that had to call the decorated function.
+	 *
+	 * @return The number of cache misses.
+	 */
+	public long getMisses(){
+		long misses = 0;
+		for(Stripe s : stripes){
+			synchronized(s){
+				misses += s.misses;
+			}
+		}
+		return misses;
+	}
+
+	/**
+	 * Gives the proportion of evaluations answered from the cache.
+	 *
+	 * @return The hit rate, or NaN if the function hasn't been evaluated.
+	 */
+	public double getHitRate(){
+		long hits = getHits();
+		return (double)hits / (hits + getMisses());
+	}
+
+	/**
+	 * Gives the number of values currently cached.
+	 *
+	 * @return The number of cached values.
+	 */
+	public int size(){
+		int size = 0;
+		for(Stripe s : stripes){
+			synchronized(s){
+				size += s.size;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Removes all cached values and resets the hit and miss counts.
+	 */
+	public void clear(){
+		for(Stripe s : stripes){
+			synchronized(s){
+				Arrays.fill(s.state, Stripe.EMPTY);
+				s.size = 0;
+				s.hand = 0;
+				s.hits = 0;
+				s.misses = 0;
+			}
+		}
+	}
+
+	/**
+	 * The finalizer of MurmurHash3, spreading the bits of a key.
+	 */
+	private static long mix(long k){
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= k >>> 33;
+		return k;
+	}
+
+	/**
+	 * One independently locked part of the cache. All access must be
+	 * synchronized on the stripe.
+	 */
+	private static final class Stripe {
+
+		static final byte EMPTY = 0;
+		static final byte USED = 1;
+		static final byte REFERENCED = 2;
+
+		final long[] keys;
+		final double[] values;
+		final byte[] state;
+		final int mask;
+		final int maxSize;
+		int size;
+		int hand;
+		long hits;
+		long misses;
+
+		Stripe(int maxSize){
+			//At most half full, so that probe sequences stay short.
+			int length = Integer.highestOneBit(Math.max(2, maxSize) * 2 - 1) << 1;
+			this.keys = new long[length];
+			this.values = new double[length];
+			this.state = new byte[length];
+			this.mask = length - 1;
+			this.maxSize = maxSize;
+		}
+
+		int find(long key, int h){
+			for(int i = h & mask; state[i] != EMPTY; i = (i + 1) & mask){
+				if(keys[i] == key){
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		void insert(long key, int h, double value){
+			if(size == maxSize){
+				evict();
+			}
+			int i = h & mask;
+			while(state[i] != EMPTY){
+				i = (i + 1) & mask;
+			}
+			keys[i] = key;
+			values[i] = value;
+			state[i] = USED;
+			size++;
+		}
+
+		/**
+		 * Sweeps the clock hand over the table, giving referenced entries
+		 * a second chance, and removes the first unreferenced entry.
+		 */
+		private void evict(){
+			while(true){
+				if(state[hand] == REFERENCED){
+					state[hand] = USED;
+				} else if(state[hand] == USED){
+					remove(hand);
+					return;
+				}
+				hand = (hand + 1) & mask;
+			}
+		}
+
+		/**
+		 * Removes the entry at index i, shifting later entries of the same
+		 * probe sequence back so that no tombstones are needed.
+		 */
+		private void remove(int i){
+			state[i] = EMPTY;
+			size--;
+			int j = i;
+			while(true){
+				j = (j + 1) & mask;
+				if(state[j] == EMPTY){
+					return;
+				}
+				int home = (int)mix(keys[j]) & mask;
+				boolean stays = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+				if(!stays){
+					keys[i] = keys[j];
+					values[i] = values[j];
+					state[i] = state[j];
+					state[j] = EMPTY;
+					i = j;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,322 @@
+package se.xell.util.math;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * A Monte Carlo simulation running independent trials of a model in
+ * parallel on a fork/join pool, reproducibly. Example:
+ * <br></br><br></br>
+ * <code>
+ * MonteCarloSimulation sim = new MonteCarloSimulation(d -&gt; d[0].nextRandom() * d[1].nextRandom(),
+ * 		new NormalDistribution(1, 0.5), new PoissonDistribution(3));<br></br>
+ * RunningStatistics s = sim.runUntil(1e-4, 1L &lt;&lt; 30, 42);
+ * </code>
+ * <br></br><br></br>
+ *
+ * The trials are divided into blocks of {@link #BLOCK_SIZE} trials. Each
+ * block gets its own random generator, the n:th generator split from a
+ * {@link SplittableRandom} seeded with the seed of the run, and its own
+ * copies of the distributions of the simulation using that generator (see
+ * {@link ProbabilityDistribution#withGenerator(RandomGenerator)}). The
+ * outcomes of a block are collected into an accumulator, and the
+ * accumulators of the blocks are combined pairwise in a tree that only
+ * depends on the number of trials, like in
+ * {@link AMath#integrateParallel(java.util.function.DoubleUnaryOperator, double, double, int, ForkJoinPool)}.
+ * The result for a given seed is therefore bit for bit the same no matter
+ * how many threads the pool has. <br></br><br></br>
+ *
+ * The model is called from several threads at once, each with its own
+ * copies of the distributions, so it must not modify any shared state.
+ *
+ * @author Tobias Axell
+ */
+public class MonteCarloSimulation {
+
+	/**
+	 * The number of trials run with the same random generator by a single task.
+	 */
+	public static final int BLOCK_SIZE = 4096;
+
+	/**
+	 * The number of blocks of the first round of a run that stops early.
+	 */
+	private static final int FIRST_ROUND_BLOCKS = 16;
+
+	/**
+	 * The largest number of blocks run at once, which bounds the number of
+	 * generators split in advance.
+	 */
+	private static final int MAX_ROUND_BLOCKS = 1 << 16;
+
+	/**
+	 * A model of a single trial of a simulation.
+	 */
+	@FunctionalInterface
+	public interface Model {
+
+		/**
+		 * Runs one trial.
+		 *
+		 * @param distributions Copies of the distributions of the simulation,
+		 * 			in the order they were given, to draw the random values
+		 * 			of the trial from.
+		 * @return The outcome of the trial.
+		 */
+		public double trial(ProbabilityDistribution[] distributions);
+	}
+
+	private final Model model;
+	private final ProbabilityDistribution[] distributions;
+
+	/**
+	 * Constructor for MonteCarloSimulation.
+	 *
+	 * @param model The model of a trial.
+	 * @param distributions The distributions that the model draws from.
+	 * 			They must support {@link ProbabilityDistribution#withGenerator(RandomGenerator)}.
+	 */
+	public MonteCarloSimulation(Model model, ProbabilityDistribution... distributions){
+		if(model == null){
+			throw new NullPointerException();
+		}
+		for(ProbabilityDistribution d : distributions){
+			if(d == null){
+				throw new NullPointerException();
+			}
+		}
+		this.model = model;
+		this.distributions = distributions.clone();
+	}
+
+	/**
+	 * Runs a number of trials on the common fork/join pool.
+	 *
+	 * @param trials The number of trials to run.
+	 * @param seed The seed of the random generators.
+	 * @return The statistics of the outcomes of the trials.
+	 * @throws IllegalArgumentException if <b>trials</b> is negative.
+	 */
+	public RunningStatistics run(long trials, long seed){
+		return run(trials, seed, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Runs a number of trials on a given fork/join pool.
+	 *
+	 * @param trials The number of trials to run.
+	 * @param seed The seed of the random generators.
+	 * @param pool The pool to run the trials on.
+	 * @return The statistics of the outcomes of the trials.
+	 * @throws IllegalArgumentException if <b>trials</b> is negative.
+	 */
+	public RunningStatistics run(long trials, long seed, ForkJoinPool pool){
+		return collect(trials, seed, pool, RunningStatistics::new,
+				RunningStatistics::accept, RunningStatistics::combine);
+	}
+
+	/**
+	 * Runs trials on the common fork/join pool until the standard error of
+	 * the mean outcome is at most a given tolerance, or until a maximum
+	 * number of trials has been run.
+	 *
+	 * @param tolerance The largest acceptable standard error of the mean.
+	 * @param maxTrials The largest number of trials to run.
+	 * @param seed The seed of the random generators.
+	 * @return The statistics of the outcomes of the trials.
+	 * @throws IllegalArgumentException if <b>tolerance</b> isn't positive or
+	 * 			if <b>maxTrials</b> is negative.
+	 * @see #collectUntil(Predicate, long, long, ForkJoinPool, Supplier, ObjDoubleConsumer, BiConsumer)
+	 */
+	public RunningStatistics runUntil(double tolerance, long maxTrials, long seed){
+		return runUntil(tolerance, maxTrials, seed, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Runs trials on a given fork/join pool until the standard error of
+	 * the mean outcome is at most a given tolerance, or until a maximum
+	 * number of trials has been run.
+	 *
+	 * @param tolerance The largest acceptable standard error of the mean.
+	 * @param maxTrials The largest number of trials to run.
+	 * @param seed The seed of the random generators.
+	 * @param pool The pool to run the trials on.
+	 * @return The statistics of the outcomes of the trials.
+	 * @throws IllegalArgumentException if <b>tolerance</b> isn't positive or
+	 * 			if <b>maxTrials</b> is negative.
+	 * @see #collectUntil(Predicate, long, long, ForkJoinPool, Supplier, ObjDoubleConsumer, BiConsumer)
+	 */
+	public RunningStatistics runUntil(double tolerance, long maxTrials, long seed, ForkJoinPool pool){
+		if(!(tolerance > 0)){
+			throw new IllegalArgumentException("tolerance must be greater than 0");
+		}
+		return collectUntil(
+				s -> s.getCount() > 1 && s.getStandardDeviation() <= tolerance * Math.sqrt(s.getCount()),
+				maxTrials, seed, pool, RunningStatistics::new,
+				RunningStatistics::accept, RunningStatistics::combine);
+	}
+
+	/**
+	 * Runs a number of trials on a given fork/join pool, collecting the
+	 * outcomes into mergeable accumulators such as {@link RunningStatistics}
+	 * or {@link TDigest}. The accumulator functions have the same meaning as
+	 * for <code>DoubleStream.collect</code>.
+	 *
+	 * @param <A> The type of the accumulator.
+	 * @param trials The number of trials to run.
+	 * @param seed The seed of the random generators.
+	 * @param pool The pool to run the trials on.
+	 * @param supplier Creates a new, empty accumulator.
+	 * @param accumulator Adds an outcome to an accumulator.
+	 * @param combiner Merges the second accumulator into the first.
+	 * @return The accumulated outcomes of the trials.
+	 * @throws IllegalArgumentException if <b>trials</b> is negative.
+	 */
+	public <A> A collect(long trials, long seed, ForkJoinPool pool, Supplier<A> supplier,
+			ObjDoubleConsumer<A> accumulator, BiConsumer<A, A> combiner){
+		return simulate(null, trials, seed, pool, supplier, accumulator, combiner);
+	}
+
+	/**
+	 * Runs trials on a given fork/join pool until the accumulated outcomes
+	 * have converged, or until a maximum number of trials has been run. The
+	 * trials are run in rounds, each as large as all earlier rounds together,
+	 * and convergence is tested after each round. Since the rounds don't
+	 * depend on the pool, neither does the number of trials run.
+	 * <br></br><br></br>
+	 *
+	 * Block n uses the same random generator however the trials are divided
+	 * into rounds, so stopping early gives the same outcomes as the first
+	 * trials of a longer run.
+	 *
+	 * @param <A> The type of the accumulator.
+	 * @param converged Tests whether the accumulated outcomes have converged.
+	 * @param maxTrials The largest number of trials to run.
+	 * @param seed The seed of the random generators.
+	 * @param pool The pool to run the trials on.
+	 * @param supplier Creates a new, empty accumulator.
+	 * @param accumulator Adds an outcome to an accumulator.
+	 * @param combiner Merges the second accumulator into the first.
+	 * @return The accumulated outcomes of the trials.
+	 * @throws IllegalArgumentException if <b>maxTrials</b> is negative.
+	 */
+	public <A> A collectUntil(Predicate<? super A> converged, long maxTrials, long seed,
+			ForkJoinPool pool, Supplier<A> supplier, ObjDoubleConsumer<A> accumulator,
+			BiConsumer<A, A> combiner){
+		if(converged == null){
+			throw new NullPointerException();
+		}
+		return simulate(converged, maxTrials, seed, pool, supplier, accumulator, combiner);
+	}
+
+	private <A> A simulate(Predicate<? super A> converged, long maxTrials, long seed,
+			ForkJoinPool pool, Supplier<A> supplier, ObjDoubleConsumer<A> accumulator,
+			BiConsumer<A, A> combiner){
+		if(pool == null || supplier == null || accumulator == null || combiner == null){
+			throw new NullPointerException();
+		}
+		if(maxTrials < 0){
+			throw new IllegalArgumentException("The number of trials must not be negative");
+		}
+
+		SplittableRandom root = new SplittableRandom(seed);
+		A result = supplier.get();
+		long done = 0;
+		long blocks = 0;
+		while(done < maxTrials){
+			long remaining = maxTrials - done;
+			long round = converged == null ? MAX_ROUND_BLOCKS :
+					Math.min(MAX_ROUND_BLOCKS, Math.max(FIRST_ROUND_BLOCKS, blocks));
+			int n = (int)Math.min(round, (remaining - 1) / BLOCK_SIZE + 1);
+			RandomGenerator[] generators = new RandomGenerator[n];
+			for(int i = 0; i < n; i++){
+				generators[i] = root.split();
+			}
+			int last = (int)(remaining - (long)(n - 1) * BLOCK_SIZE);
+			last = Math.min(last, BLOCK_SIZE);
+
+			Task<A> task = new Task<>(this, generators, last, 0, n, supplier, accumulator, combiner);
+			pool.invoke(task);
+			combiner.accept(result, task.result);
+			done += (long)(n - 1) * BLOCK_SIZE + last;
+			blocks += n;
+			if(converged != null && converged.test(result)){
+				break;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * A fork/join task running the trials of a range of blocks, split in
+	 * halves down to single blocks.
+	 */
+	private static final class Task<A> extends RecursiveAction {
+
+		private static final long serialVersionUID = 4460523191582364104L;
+
+		private final MonteCarloSimulation simulation;
+		private final RandomGenerator[] generators;
+		private final int lastBlockSize;
+		private final int from;
+		private final int to;
+		private final Supplier<A> supplier;
+		private final ObjDoubleConsumer<A> accumulator;
+		private final BiConsumer<A, A> combiner;
+
+		A result;
+
+		Task(MonteCarloSimulation simulation, RandomGenerator[] generators, int lastBlockSize,
+				int from, int to, Supplier<A> supplier, ObjDoubleConsumer<A> accumulator,
+				BiConsumer<A, A> combiner){
+			this.simulation = simulation;
+			this.generators = generators;
+			this.lastBlockSize = lastBlockSize;
+			this.from = from;
+			this.to = to;
+			this.supplier = supplier;
+			this.accumulator = accumulator;
+			this.combiner = combiner;
+		}
+
+		@Override
+		protected void compute(){
+			if(to - from == 1){
+				result = runBlock();
+				return;
+			}
+
+			int mid = (from + to) >>> 1;
+			Task<A> left = new Task<>(simulation, generators, lastBlockSize, from, mid,
+					supplier, accumulator, combiner);
+			Task<A> right = new Task<>(simulation, generators, lastBlockSize, mid, to,
+					supplier, accumulator, combiner);
+			invokeAll(left, right);
+
+			combiner.accept(left.result, right.result);
+			result = left.result;
+		}
+
+		private A runBlock(){
+			final RandomGenerator g = generators[from];
+			final ProbabilityDistribution[] source = simulation.distributions;
+			final ProbabilityDistribution[] d = new ProbabilityDistribution[source.length];
+			for(int i = 0; i < d.length; i++){
+				d[i] = source[i].withGenerator(g);
+			}
+			final Model model = simulation.model;
+			final int trials = to == generators.length ? lastBlockSize : BLOCK_SIZE;
+			A acc = supplier.get();
+			for(int t = 0; t < trials; t++){
+				accumulator.accept(acc, model.trial(d));
+			}
+			return acc;
+		}
+	}
+}
@@ -1,22 +1,27 @@
 package se.xell.util.math;
 
+import java.util.Objects;
 import java.util.Random;
-
-import se.xell.junky.Function1;
+import java.util.random.RandomGenerator;
+import java.util.stream.DoubleStream;
 
 /**
  * A normal distribution for mathematical and statistical
- * purposes.
+ * purposes. Random values are generated by the ziggurat method.
  * 
  * @author Tobias Axell
  */
 public class NormalDistribution implements ContinuousDistribution{
 	
+	private static final double SQRT_2 = Math.sqrt(2);
+	
 	private final double mean;
 	private final double variance;
-	private final Random randomGenerator;
+	private final double standardDeviation;
+	private final RandomGenerator randomGenerator;
 	
 	private final double probabilityDensityCoefficient;
+	private final double logProbabilityDensityCoefficient;
 	
 	/**
 	 * Constructor for NormalDistribution.
@@ -36,7 +41,7 @@ public class NormalDistribution implements ContinuousDistribution{
 	 * @param generator - A random generator for generating random variables
 	 * 						distributed in N(mean, variance).
 	 */
-	public NormalDistribution(double mean, double variance, Random generator){
+	public NormalDistribution(double mean, double variance, RandomGenerator generator){
 		if(generator == null){
 			throw new NullPointerException();
 		}
@@ -45,11 +50,28 @@ public class NormalDistribution implements ContinuousDistribution{
 		}
 		this.mean = mean;
 		this.variance = variance;
+		this.standardDeviation = StrictMath.sqrt(variance);
 		this.probabilityDensityCoefficient = 
 					1/StrictMath.sqrt(2 * StrictMath.PI * variance);
+		this.logProbabilityDensityCoefficient = 
+					-0.5 * StrictMath.log(2 * StrictMath.PI * variance);
 		this.randomGenerator = generator;
 	}
 	
+	/**
+	 * Constructor for NormalDistribution taking a {@link Random}, for
+	 * code compiled against earlier versions of this class.
+	 * 
+	 * @param mean - The mean value of the distribution.
+	 * @param variance - The variance of the distribution.
+	 * @param generator - A random generator for generating random variables
+	 * 						distributed in N(mean, variance).
+	 * @see #NormalDistribution(double, double, RandomGenerator)
+	 */
+	public NormalDistribution(double mean, double variance, Random generator){
+		this(mean, variance, (RandomGenerator)generator);
+	}
+	
 
 	@Override
 	public double expectedValue(){
@@ -67,60 +89,219 @@ public class NormalDistribution implements ContinuousDistribution{
 	 * @return The standard deviation of the distribution.
 	 */
 	public double standardDeviation(){
-		return StrictMath.sqrt(variance);
+		return standardDeviation;
 	}
 	
 	@Override
 	public double probabilityDensityOf(double x){	
 		// (1/Sqrt(2*pi*variance)) * e^(-(x-mean)²/(2*variance))
 		double exp = -((x-mean)*(x-mean)/(2 * variance));
-		double fac = StrictMath.pow(StrictMath.E, exp);
-		return probabilityDensityCoefficient * fac;
+		return probabilityDensityCoefficient * Math.exp(exp);
+	}
+	
+	@Override
+	public double logProbabilityDensityOf(double x){
+		return logProbabilityDensityCoefficient - (x-mean)*(x-mean)/(2 * variance);
+	}
+	
+	@Override
+	public void probabilityDensitiesOf(double[] x, double[] out){
+		Objects.checkFromIndexSize(0, x.length, out.length);
+		final double m = mean;
+		final double c = probabilityDensityCoefficient;
+		final double h = -0.5 / variance;
+		for(int i = 0; i < x.length; i++){
+			double d = x[i] - m;
+			out[i] = c * Math.exp(h * d * d);
+		}
+	}
+	
+	@Override
+	public void logProbabilityDensitiesOf(double[] x, double[] out){
+		Objects.checkFromIndexSize(0, x.length, out.length);
+		final double m = mean;
+		final double c = logProbabilityDensityCoefficient;
+		final double h = -0.5 / variance;
+		for(int i = 0; i < x.length; i++){
+			double d = x[i] - m;
+			out[i] = c + h * d * d;
+		}
+	}
+	
+	/**
+	 * The log-likelihood of a sample, n ln(1 / sqrt(2 pi variance)) minus
+	 * the sum of squared deviations over 2 * variance, so it takes no 
+	 * logarithm or exponential per value.
+	 */
+	@Override
+	public double logLikelihood(double[] sample){
+		final double m = mean;
+		double squares = 0;
+		for(double x : sample){
+			double d = x - m;
+			squares += d * d;
+		}
+		return sample.length * logProbabilityDensityCoefficient - squares / (2 * variance);
+	}
+	
+	@Override
+	public DualNumber probabilityDensityOf(DualNumber x){
+		double v = x.value();
+		double p = probabilityDensityOf(v);
+		return x.chain(p, -p * (v - mean) / variance);
+	}
+	
+	/**
+	 * The probability density function of a normal distribution, evaluated
+	 * on dual numbers. This gives the partial derivatives of the density 
+	 * with respect to the point as well as the parameters of the 
+	 * distribution, e.g. for maximum likelihood fitting.
+	 * 
+	 * @param x - The value to calculate the probability density of.
+	 * @param mean - The mean value of the distribution.
+	 * @param variance - The variance of the distribution.
+	 * @return The probability density of <b>x</b> in N(<b>mean</b>, <b>variance</b>).
+	 */
+	public static DualNumber probabilityDensityOf(DualNumber x, DualNumber mean, DualNumber variance){
+		DualNumber d = x.subtract(mean);
+		return d.square().divide(variance.multiply(-2)).exp()
+				.divide(variance.multiply(2 * StrictMath.PI).sqrt());
 	}
 	
 	@Override
 	public double cumulativeDensityOf(double x) {
-		return 0.5 * (1 + AMath.erf((x-mean)/StrictMath.sqrt(2 * variance)));
+		//erfc keeps its precision in the lower tail, where 1 + erf would cancel.
+		return 0.5 * AMath.erfc((mean-x)/StrictMath.sqrt(2 * variance));
+	}
+	
+	@Override
+	public double complementaryCumulativeDensityOf(double x) {
+		return 0.5 * AMath.erfc((x-mean)/StrictMath.sqrt(2 * variance));
 	}
 	
 	@Override
 	public double probabilityOf(double a, double b){
-		return AMath.integrate(new Function1<Double, Double>(){
-
-				@Override
-				public Double f(Double x) {
-					return probabilityDensityOf(x);
-				}},
-			a, b);
+		double s = StrictMath.sqrt(2 * variance);
+		double za = (a-mean)/s;
+		double zb = (b-mean)/s;
+		//Use the tail that doesn't cancel.
+		if(za > 0){
+			return 0.5 * (AMath.erfc(za) - AMath.erfc(zb));
+		} else if(zb < 0){
+			return 0.5 * (AMath.erfc(-zb) - AMath.erfc(-za));
+		}
+		return 0.5 * (AMath.erf(zb) - AMath.erf(za));
+	}
+	
+	/**
+	 * The quantile function of the distribution, calculated through the
+	 * inverse complementary error function, which is exact to a few ulps
+	 * also far out in the tails.
+	 */
+	@Override
+	public double quantile(double p){
+		AMath.checkProbability(p);
+		return mean - standardDeviation * SQRT_2 * AMath.erfcinv(2 * p);
+	}
+	
+	@Override
+	public void quantiles(double[] p, double[] out){
+		Objects.checkFromIndexSize(0, p.length, out.length);
+		final double m = mean;
+		final double s = standardDeviation * SQRT_2;
+		for(int i = 0; i < p.length; i++){
+			AMath.checkProbability(p[i]);
+			out[i] = m - s * AMath.erfcinv(2 * p[i]);
+		}
 	}
 	
 	@Override
 	public double nextRandom(){
-		double X = randomGenerator.nextGaussian();
-		return StrictMath.sqrt(variance) * X + mean;
+		double X = Ziggurat.normal(randomGenerator);
+		return standardDeviation * X + mean;
+	}
+	
+	@Override
+	public void nextRandoms(double[] out, int off, int len){
+		Objects.checkFromIndexSize(off, len, out.length);
+		final RandomGenerator r = randomGenerator;
+		final double m = mean;
+		final double s = standardDeviation;
+		for(int i = off; i < off + len; i++){
+			out[i] = s * Ziggurat.normal(r) + m;
+		}
 	}
 	
-	/*
+	/**
+	 * Gives the normal distribution that fits a given sample, using the
+	 * mean and the unbiased sample variance of the sample, i.e. the sum of
+	 * squared deviations divided by <i>n - 1</i>. {@link #fit(double[])}
+	 * instead divides by <i>n</i>, which gives the maximum likelihood
+	 * estimate. The difference only matters for small samples.
+	 * 
+	 * @param sample - The sample to fit a normal distribution to.
+	 * @return A normal distribution fitted to <b>sample</b>.
+	 * @throws IllegalArgumentException if <b>sample</b> doesn't contain at
+	 * 			least two distinct values.
+	 * @see #fit(double[])
+	 */
 	public static NormalDistribution distributionFor(double[] sample){
-		//TODO - Implement for real...
-		double sumTerm = 0;
-		double squareSumTerm = 0;
-		
-		for(int i = 0; i < sample.length; i++){
-			sumTerm += sample[i];
-			squareSumTerm += sample[i] * sample[i];
+		return RunningStatistics.of(sample).toNormalDistribution();
+	}
+	
+	/**
+	 * Fits a normal distribution to a sample by maximum likelihood, i.e.
+	 * with the mean and the population variance of the sample: the sum of
+	 * squared deviations divided by <i>n</i>. This estimate is slightly
+	 * biased; {@link #distributionFor(double[])} gives the unbiased one,
+	 * which divides by <i>n - 1</i>. Large samples are summarized in 
+	 * parallel.
+	 * 
+	 * @param sample - The sample to fit the distribution to.
+	 * @return The normal distribution that best fits <b>sample</b>.
+	 * @throws IllegalArgumentException if <b>sample</b> doesn't contain at 
+	 * 			least two distinct values.
+	 * @see #distributionFor(double[])
+	 */
+	public static NormalDistribution fit(double[] sample){
+		return fit(RunningStatistics.ofParallel(sample));
+	}
+	
+	/**
+	 * Fits a normal distribution to a stream of values by maximum likelihood.
+	 * The stream is summarized in parallel if it is parallel, e.g. when it
+	 * comes from {@link SampleFile#doubles(java.nio.file.Path)}.
+	 * 
+	 * @param sample - The values to fit the distribution to.
+	 * @return The normal distribution that best fits <b>sample</b>.
+	 * @throws IllegalArgumentException if <b>sample</b> doesn't contain at 
+	 * 			least two distinct values.
+	 */
+	public static NormalDistribution fit(DoubleStream sample){
+		return fit(RunningStatistics.of(sample));
+	}
+	
+	private static NormalDistribution fit(RunningStatistics s){
+		if(!(s.getPopulationVariance() > 0)){
+			throw new IllegalArgumentException("The sample must contain at least two distinct values");
 		}
-		
-		double mean = sumTerm / sample.length;
-		
-		sumTerm /= sample.length;
-		sumTerm *= sumTerm;
-		sumTerm *= sample.length / (sample.length - 1);
-		
-		squareSumTerm /= (sample.length - 1);
-		
-		double standardDeviation = StrictMath.sqrt(squareSumTerm - sumTerm);
-		
-		return new NormalDistribution(mean, (standardDeviation * standardDeviation));
-	}*/
+		return new NormalDistribution(s.getMean(), s.getPopulationVariance());
+	}
+	
+	/**
+	 * Gives a copy of this distribution that generates its random values
+	 * with a given random generator.
+	 * 
+	 * @param generator The random generator of the copy.
+	 * @return A copy of this distribution using <b>generator</b>.
+	 */
+	@Override
+	public NormalDistribution withGenerator(RandomGenerator generator){
+		return new NormalDistribution(mean, variance, generator);
+	}
+	
+	@Override
+	public NormalDistribution split(){
+		return withGenerator(Randoms.split(randomGenerator));
+	}
 }
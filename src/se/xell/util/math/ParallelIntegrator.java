@@ -0,0 +1,106 @@
+package se.xell.util.math;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * A fork/join task calculating the trapezoidal sum of a function over
+ * a range of sample points. The range is split in halves until it is
+ * no larger than {@link #GRANULARITY} points, and the partial sums are
+ * combined with compensated (Neumaier) summation.<br></br><br></br>
+ *
+ * The way the range is split depends only on the number of sample
+ * points, so the result is the same no matter how many threads the
+ * pool running the task has.
+ *
+ * @author Tobias Axell
+ */
+class ParallelIntegrator extends RecursiveAction {
+
+	private static final long serialVersionUID = -2481645378820193017L;
+
+	/**
+	 * The maximum number of sample points evaluated by a single task.
+	 */
+	static final int GRANULARITY = 256;
+
+	private final DoubleUnaryOperator f;
+	private final double a;
+	private final double b;
+	private final double h;
+	private final int steps;
+	private final int from;
+	private final int to;
+
+	double sum;
+	double compensation;
+
+	/**
+	 * Constructor for ParallelIntegrator.
+	 *
+	 * @param f The function to integrate.
+	 * @param a The start of the interval to integrate.
+	 * @param b The end of the interval to integrate.
+	 * @param h The step size.
+	 * @param steps The total number of steps over the interval.
+	 * @param from The first sample point (inclusive) of this task.
+	 * @param to The last sample point (exclusive) of this task.
+	 */
+	ParallelIntegrator(DoubleUnaryOperator f, double a, double b, double h, int steps, int from, int to){
+		this.f = f;
+		this.a = a;
+		this.b = b;
+		this.h = h;
+		this.steps = steps;
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	protected void compute(){
+		if(to - from <= GRANULARITY){
+			for(int i = from; i < to; i++){
+				double y;
+				//a + h * steps may round past b, so the ends are evaluated exactly
+				if(i == 0){
+					y = 0.5 * f.applyAsDouble(a);
+				} else if(i == steps){
+					y = 0.5 * f.applyAsDouble(b);
+				} else {
+					y = f.applyAsDouble(a + h * i);
+				}
+				add(y);
+			}
+			return;
+		}
+
+		int mid = (from + to) >>> 1;
+		ParallelIntegrator left = new ParallelIntegrator(f, a, b, h, steps, from, mid);
+		ParallelIntegrator right = new ParallelIntegrator(f, a, b, h, steps, mid, to);
+		invokeAll(left, right);
+
+		sum = left.sum;
+		compensation = left.compensation;
+		add(right.sum);
+		compensation += right.compensation;
+	}
+
+	private void add(double y){
+		double t = sum + y;
+		if(Math.abs(sum) >= Math.abs(y)){
+			compensation += (sum - t) + y;
+		} else {
+			compensation += (y - t) + sum;
+		}
+		sum = t;
+	}
+
+	/**
+	 * Gives the compensated sum calculated by this task.
+	 *
+	 * @return The sum of the weighted sample points of this task.
+	 */
+	double result(){
+		return sum + compensation;
+	}
+}
@@ -1,17 +1,49 @@
 package se.xell.util.math;
 
-import java.math.BigDecimal;
+import java.util.Objects;
 import java.util.Random;
+import java.util.random.RandomGenerator;
+import java.util.stream.DoubleStream;
 
 /**
- * A Poisson probability distribution.
+ * A Poisson probability distribution. <br></br><br></br>
+ * 
+ * Random values are generated by inversion, searching up from 0, when 
+ * lambda < 10, and otherwise by the PTRS transformed rejection method of 
+ * Hörmann, which takes constant expected time whatever lambda is. The 
+ * constants of both are computed by the constructor.
  * 
  * @author Tobias Axell
  */
 public class PoissonDistribution extends AbstractDiscreteDistribution{
 
 	protected final double lambda;
-	protected final Random generator;
+	protected final RandomGenerator generator;
+	
+	/**
+	 * The lambda from which the PTRS sampler is used instead of inversion.
+	 */
+	private static final double PTRS_LIMIT = 10;
+	
+	/**
+	 * The largest step between points that the batch cumulative density
+	 * takes by the recurrence of the probability mass.
+	 */
+	private static final int RECURRENCE_LIMIT = 64;
+	
+	/**
+	 * e^-lambda, the probability mass of 0, for inversion.
+	 */
+	private final double expMinusLambda;
+	
+	/**
+	 * The constants of the PTRS sampler.
+	 */
+	private final double logLambda;
+	private final double a;
+	private final double b;
+	private final double logInvAlpha;
+	private final double vr;
 	
 	/**
 	 * Constructor for PoissonDistribution.
@@ -28,7 +60,7 @@ public class PoissonDistribution extends AbstractDiscreteDistribution{
 	 * @param lambda The lambda (expected value and variance) of this distribution.
 	 * @param generator A random generator for generating random numbers of this distribution.
 	 */
-	public PoissonDistribution(double lambda, Random generator){
+	public PoissonDistribution(double lambda, RandomGenerator generator){
 		if(lambda <= 0){
 			throw new IllegalArgumentException("lambda must be greater than 0");
 		}
@@ -37,6 +69,25 @@ public class PoissonDistribution extends AbstractDiscreteDistribution{
 		}
 		this.lambda = lambda;
 		this.generator = generator;
+		
+		this.expMinusLambda = Math.exp(-lambda);
+		this.logLambda = Math.log(lambda);
+		this.b = 0.931 + 2.53 * Math.sqrt(lambda);
+		this.a = -0.059 + 0.02483 * b;
+		this.logInvAlpha = Math.log(1.1239 + 1.1328 / (b - 3.4));
+		this.vr = 0.9277 - 3.6224 / (b - 2);
+	}
+	
+	/**
+	 * Constructor for PoissonDistribution taking a {@link Random}, for
+	 * code compiled against earlier versions of this class.
+	 * 
+	 * @param lambda The lambda (expected value and variance) of this distribution.
+	 * @param generator A random generator for generating random numbers of this distribution.
+	 * @see #PoissonDistribution(double, RandomGenerator)
+	 */
+	public PoissonDistribution(double lambda, Random generator){
+		this(lambda, (RandomGenerator)generator);
 	}
 	
 	/**
@@ -60,30 +111,226 @@ public class PoissonDistribution extends AbstractDiscreteDistribution{
 	
 	@Override
 	public double probabilityMassOf(int x) {
-		BigDecimal numerator = new BigDecimal(Math.exp(-lambda)*Math.pow(lambda, x));
-		BigDecimal denominator = new BigDecimal(AMath.factorial(x));
-		return numerator.divide(denominator).doubleValue();
+		return Math.exp(logProbabilityMassOf(x));
+	}
+	
+	/**
+	 * The natural logarithm of the probability mass function for the 
+	 * distribution. The logarithm is calculated directly, using the 
+	 * saddle point expansion of Loader, so it is accurate also where 
+	 * the probability mass itself underflows to 0.
+	 * 
+	 * @param x - The value to calculate the probability mass of.
+	 * @return The natural logarithm of the probability mass of x.
+	 */
+	@Override
+	public double logProbabilityMassOf(int x) {
+		if(x < 0){
+			return Double.NEGATIVE_INFINITY;
+		} else if(x == 0){
+			return -lambda;
+		}
+		return -AMath.stirlingError(x) - AMath.deviance(x, lambda) - 0.5 * Math.log(2 * Math.PI * x);
 	}
 	
 	@Override
 	public double cumulativeDensityOf(double x) {
-		double sum = 0;
-		for(int i = 0; i <= x; i++){
-			sum += probabilityMassOf(i);
+		if(x < 0){
+			return 0;
+		} else if(x == Double.POSITIVE_INFINITY){
+			return 1;
+		}
+		//P(X <= k) = Q(k + 1, lambda)
+		return AMath.regularizedGammaQ(Math.floor(x) + 1, lambda);
+	}
+	
+	@Override
+	public double complementaryCumulativeDensityOf(double x) {
+		if(x < 0){
+			return 1;
+		} else if(x == Double.POSITIVE_INFINITY){
+			return 0;
+		}
+		return AMath.regularizedGammaP(Math.floor(x) + 1, lambda);
+	}
+	
+	/**
+	 * Calculates the cumulative density function at several points. 
+	 * Between ascending points less than 64 apart the probability masses
+	 * are stepped by the recurrence P(k) = P(k-1) * lambda / k and added 
+	 * up; at other points the incomplete gamma function is used.
+	 */
+	@Override
+	public void cumulativeDensitiesOf(int[] x, double[] out) {
+		Objects.checkFromIndexSize(0, x.length, out.length);
+		int last = 0;
+		double cdf = 0;
+		double pmf = 0;
+		for(int i = 0; i < x.length; i++){
+			int k = x[i];
+			if(pmf >= Double.MIN_NORMAL && last < k && k - last < RECURRENCE_LIMIT){
+				for(int j = last + 1; j <= k; j++){
+					pmf *= lambda / j;
+					cdf += pmf;
+				}
+				cdf = Math.min(cdf, 1);
+			} else {
+				cdf = cumulativeDensityOf(k);
+				pmf = probabilityMassOf(k);
+			}
+			out[i] = cdf;
+			last = k;
 		}
-		return sum;
 	}
 
+	/**
+	 * The quantile function of the distribution, found by a search from 
+	 * the Cornish-Fisher approximation of the quantile, which is usually
+	 * within a step or two of it.
+	 */
+	@Override
+	public double quantile(double probability) {
+		AMath.checkProbability(probability);
+		if(probability == 0){
+			return 0;
+		} else if(probability == 1){
+			return Double.POSITIVE_INFINITY;
+		}
+		double sd = Math.sqrt(lambda);
+		double guess = AMath.cornishFisher(probability, lambda, sd, 1 / sd);
+		return searchQuantile(probability, (int)Math.max(0, Math.min(Integer.MAX_VALUE, Math.round(guess))));
+	}
+	
 	@Override
 	public double nextRandom() {
-		//http://en.wikipedia.org/wiki/Poisson_distribution#Generating_Poisson-distributed_random_variables
-		final double l = Math.exp(-lambda);
-		double p = 1;
-		int k = 0;
-		do {
-			k++;
-			p *= generator.nextDouble();
-		} while(p > l);
-		return k-1;
+		return nextRandomInt();
+	}
+	
+	@Override
+	public int nextRandomInt() {
+		return sample(generator);
+	}
+	
+	@Override
+	public void nextRandoms(double[] out, int off, int len){
+		Objects.checkFromIndexSize(off, len, out.length);
+		final RandomGenerator g = generator;
+		for(int i = off; i < off + len; i++){
+			out[i] = sample(g);
+		}
+	}
+	
+	@Override
+	public void nextRandoms(int[] out, int off, int len){
+		Objects.checkFromIndexSize(off, len, out.length);
+		final RandomGenerator g = generator;
+		for(int i = off; i < off + len; i++){
+			out[i] = sample(g);
+		}
+	}
+	
+	private int sample(RandomGenerator g) {
+		return lambda < PTRS_LIMIT ? inversion(g) : ptrs(g);
+	}
+	
+	/**
+	 * Inversion by sequential search from 0, using the recurrence 
+	 * P(x) = P(x-1) * lambda / x. In the (extremely unlikely) event that 
+	 * rounding carries the search into the far tail it is restarted.
+	 */
+	private int inversion(RandomGenerator g) {
+		int x = 0;
+		double px = expMinusLambda;
+		double u = g.nextDouble();
+		while(u > px){
+			x++;
+			if(x > 100){
+				x = 0;
+				px = expMinusLambda;
+				u = g.nextDouble();
+			} else {
+				u -= px;
+				px *= lambda / x;
+			}
+		}
+		return x;
+	}
+	
+	/**
+	 * The PTRS (transformed rejection with squeeze) algorithm of W. Hörmann, 
+	 * "The transformed rejection method for generating Poisson random 
+	 * variables", Insurance: Mathematics and Economics 12 (1993). Most 
+	 * samples are accepted by the squeeze, from two uniform values and 
+	 * no logarithm.
+	 */
+	private int ptrs(RandomGenerator g) {
+		while(true){
+			double u = g.nextDouble() - 0.5;
+			double v = g.nextDouble();
+			double us = 0.5 - Math.abs(u);
+			double k = Math.floor((2 * a / us + b) * u + lambda + 0.43);
+			if(us >= 0.07 && v <= vr){
+				return (int)k;
+			}
+			if(k < 0 || (us < 0.013 && v > us)){
+				continue;
+			}
+			if(Math.log(v) + logInvAlpha - Math.log(a / (us * us) + b) 
+					<= -lambda + k * logLambda - AMath.logFactorial((int)k)){
+				return (int)k;
+			}
+		}
+	}
+	
+	/**
+	 * Fits a Poisson distribution to a sample of counts by maximum
+	 * likelihood, i.e. with lambda as the mean count. Large samples are 
+	 * summarized in parallel.
+	 * 
+	 * @param sample - The counts to fit the distribution to.
+	 * @return The Poisson distribution that best fits <b>sample</b>.
+	 * @throws IllegalArgumentException if <b>sample</b> is empty, has a 
+	 * 			negative value or only zeros.
+	 */
+	public static PoissonDistribution fit(double[] sample){
+		return fit(RunningStatistics.ofParallel(sample));
+	}
+	
+	/**
+	 * Fits a Poisson distribution to a stream of counts by maximum 
+	 * likelihood. The stream is summarized in parallel if it is parallel.
+	 * 
+	 * @param sample - The counts to fit the distribution to.
+	 * @return The Poisson distribution that best fits <b>sample</b>.
+	 * @throws IllegalArgumentException if <b>sample</b> is empty, has a 
+	 * 			negative value or only zeros.
+	 * @see SampleFile
+	 */
+	public static PoissonDistribution fit(DoubleStream sample){
+		return fit(RunningStatistics.of(sample));
+	}
+	
+	private static PoissonDistribution fit(RunningStatistics s){
+		if(s.getCount() == 0 || s.getMin() < 0 || !(s.getMean() > 0)){
+			throw new IllegalArgumentException("The sample must be non-negative with a positive mean");
+		}
+		return new PoissonDistribution(s.getMean());
+	}
+	
+	/**
+	 * Gives a copy of this distribution that generates its random values
+	 * with a given random generator.
+	 * 
+	 * @param generator The random generator of the copy.
+	 * @return A copy of this distribution using <b>generator</b>.
+	 */
+	@Override
+	public PoissonDistribution withGenerator(RandomGenerator generator){
+		return new PoissonDistribution(lambda, generator);
+	}
+	
+	@Override
+	public PoissonDistribution split(){
+		return withGenerator(Randoms.split(generator));
 	}
 }
@@ -2,14 +2,14 @@ package se.xell.util.math;
 
 import java.util.Arrays;
 
-import se.xell.junky.Function1;
-
 /**
- * A polynomial function.
+ * A polynomial function. The function can be evaluated either boxed,
+ * through {@link #f(Double)}, primitive, through {@link #applyAsDouble(double)},
+ * or on dual numbers, through {@link #apply(DualNumber)}.
  * 
  * @author Tobias Axell
  */
-public class PolynomialFunction implements Function1<Double, Double> {
+public class PolynomialFunction implements DifferentiableFunction {
 
 	private double[] coefficients;
 	
@@ -52,15 +52,36 @@ public class PolynomialFunction implements Function1<Double, Double> {
 	}
 
 	@Override
-	public Double f(Double x) {
-		
-		double sum = 0;
-		for(int i = 0; i < coefficients.length; i++){
-			sum += coefficients[i] * Math.pow(x, i);
+	public double applyAsDouble(double x) {
+		//Horner's method
+		double sum = coefficients[coefficients.length - 1];
+		for(int i = coefficients.length - 2; i >= 0; i--){
+			sum = sum * x + coefficients[i];
 		}
 		return sum;
 	}
 	
+	@Override
+	public DualNumber apply(DualNumber x) {
+		DualNumber sum = DualNumber.constant(coefficients[coefficients.length - 1]);
+		for(int i = coefficients.length - 2; i >= 0; i--){
+			sum = sum.multiply(x).add(coefficients[i]);
+		}
+		return sum;
+	}
+	
+	@Override
+	public double derivative(double x) {
+		//Horner's method for the polynomial and its derivative at once
+		double sum = coefficients[coefficients.length - 1];
+		double derivative = 0;
+		for(int i = coefficients.length - 2; i >= 0; i--){
+			derivative = derivative * x + sum;
+			sum = sum * x + coefficients[i];
+		}
+		return derivative;
+	}
+	
 	@Override
 	public String toString(){
 		String s = "f(x) = ";
@@ -1,5 +1,9 @@
 package se.xell.util.math;
 
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+import java.util.stream.DoubleStream;
+
 /**
  * A probability distribution in mathematical statistics.
  * 
@@ -31,6 +35,65 @@ public interface ProbabilityDistribution {
 	 */
 	public double probabilityDensityOf(double x);
 	
+	/**
+	 * The natural logarithm of the probability density function for the
+	 * distribution. Distributions override this to calculate the logarithm
+	 * directly, so that it doesn't underflow far out in the tails.
+	 * 
+	 * @param x The value to calculate the log probability density of.
+	 * @return The natural logarithm of the probability density of 'x'.
+	 */
+	public default double logProbabilityDensityOf(double x){
+		return Math.log(probabilityDensityOf(x));
+	}
+	
+	/**
+	 * Calculates the probability density function at several points.
+	 * <b>x</b> and <b>out</b> may be the same array.
+	 * 
+	 * @param x The values to calculate the probability density of.
+	 * @param out The array to store the densities in, at the same indices
+	 * 				as in <b>x</b>.
+	 * @throws IndexOutOfBoundsException if <b>out</b> is shorter than <b>x</b>.
+	 */
+	public default void probabilityDensitiesOf(double[] x, double[] out){
+		Objects.checkFromIndexSize(0, x.length, out.length);
+		for(int i = 0; i < x.length; i++){
+			out[i] = probabilityDensityOf(x[i]);
+		}
+	}
+	
+	/**
+	 * Calculates the natural logarithm of the probability density function
+	 * at several points. <b>x</b> and <b>out</b> may be the same array.
+	 * 
+	 * @param x The values to calculate the log probability density of.
+	 * @param out The array to store the log densities in, at the same 
+	 * 				indices as in <b>x</b>.
+	 * @throws IndexOutOfBoundsException if <b>out</b> is shorter than <b>x</b>.
+	 */
+	public default void logProbabilityDensitiesOf(double[] x, double[] out){
+		Objects.checkFromIndexSize(0, x.length, out.length);
+		for(int i = 0; i < x.length; i++){
+			out[i] = logProbabilityDensityOf(x[i]);
+		}
+	}
+	
+	/**
+	 * The log-likelihood of a sample, i.e. the sum of the log probability
+	 * densities of its values.
+	 * 
+	 * @param sample The sample to calculate the log-likelihood of.
+	 * @return The natural logarithm of the likelihood of <b>sample</b>.
+	 */
+	public default double logLikelihood(double[] sample){
+		double sum = 0;
+		for(double x : sample){
+			sum += logProbabilityDensityOf(x);
+		}
+		return sum;
+	}
+	
 	/**
 	 * The cumulative density function for the distribution.
 	 * 
@@ -39,6 +102,99 @@ public interface ProbabilityDistribution {
 	 */
 	public double cumulativeDensityOf(double x);
 	
+	/**
+	 * The complement of the cumulative density function, the probability 
+	 * that a random variable of the distribution is greater than x. 
+	 * Distributions override this to calculate it directly, so that it
+	 * keeps its precision where the cumulative density is close to 1.
+	 * 
+	 * @param x The value to calculate the complementary cumulative density of.
+	 * @return 1 - cumulativeDensityOf(x)
+	 */
+	public default double complementaryCumulativeDensityOf(double x){
+		return 1 - cumulativeDensityOf(x);
+	}
+	
+	/**
+	 * The quantile function, or inverse cumulative density function, of 
+	 * the distribution; the smallest x such that cumulativeDensityOf(x) 
+	 * &gt;= p. <br></br><br></br>
+	 * 
+	 * Distributions override this with closed forms or searches guided by
+	 * their shape. By default the cumulative density is bracketed by 
+	 * steps of the standard deviation from the expected value, doubling 
+	 * in length, and the quantile is then found by 
+	 * {@link Solvers#brentRoot(java.util.function.DoubleUnaryOperator, double, double)}.
+	 * 
+	 * @param p The probability to calculate the quantile of.
+	 * @return The <b>p</b> quantile of the distribution.
+	 * @throws IllegalArgumentException if <b>p</b> isn't in [0, 1].
+	 */
+	public default double quantile(double p){
+		AMath.checkProbability(p);
+		double m = expectedValue();
+		double s = Math.sqrt(variance());
+		if(!(s > 0) || Double.isInfinite(s)){
+			s = 1;
+		}
+		double lo = m - s;
+		double hi = m + s;
+		while(cumulativeDensityOf(lo) >= p){
+			if(Double.isInfinite(lo)){
+				return lo;
+			}
+			hi = lo;
+			lo -= (s *= 2);
+		}
+		while(cumulativeDensityOf(hi) < p){
+			if(Double.isInfinite(hi)){
+				return hi;
+			}
+			lo = hi;
+			hi += (s *= 2);
+		}
+		return Solvers.brentRoot(x -> cumulativeDensityOf(x) - p, lo, hi).getX();
+	}
+	
+	/**
+	 * Calculates the quantile function at several probabilities.
+	 * <b>p</b> and <b>out</b> may be the same array.
+	 * 
+	 * @param p The probabilities to calculate the quantiles of.
+	 * @param out The array to store the quantiles in, at the same indices
+	 * 				as in <b>p</b>.
+	 * @throws IndexOutOfBoundsException if <b>out</b> is shorter than <b>p</b>.
+	 * @throws IllegalArgumentException if a probability isn't in [0, 1].
+	 * @see #quantile(double)
+	 */
+	public default void quantiles(double[] p, double[] out){
+		Objects.checkFromIndexSize(0, p.length, out.length);
+		for(int i = 0; i < p.length; i++){
+			out[i] = quantile(p[i]);
+		}
+	}
+	
+	/**
+	 * Gives the probability density function of the distribution as a
+	 * function that can be evaluated without boxing, e.g. by
+	 * {@link AMath#integrate(RealFunction, double, double)}.
+	 * 
+	 * @return The probability density function of this distribution.
+	 */
+	public default RealFunction probabilityDensityFunction(){
+		return this::probabilityDensityOf;
+	}
+	
+	/**
+	 * Gives the cumulative density function of the distribution as a
+	 * function that can be evaluated without boxing.
+	 * 
+	 * @return The cumulative density function of this distribution.
+	 */
+	public default RealFunction cumulativeDensityFunction(){
+		return this::cumulativeDensityOf;
+	}
+	
 	/**
 	 * Generates random values distributed over this probability 
 	 * distribution. <br/><br/>
@@ -54,4 +210,102 @@ public interface ProbabilityDistribution {
 	 * @return A random value distributed over this distribution.
 	 */
 	public double nextRandom();
+	
+	/**
+	 * Fills a part of an array with random values distributed over this
+	 * distribution. This is equivalent to calling {@link #nextRandom()}
+	 * <b>len</b> times, but distributions override it with loops that
+	 * compute their constants once rather than once per value.
+	 * 
+	 * @param out The array to store the random values in.
+	 * @param off The index of <b>out</b> to store the first value at.
+	 * @param len The number of values to generate.
+	 * @throws IndexOutOfBoundsException if the range is outside of <b>out</b>.
+	 */
+	public default void nextRandoms(double[] out, int off, int len){
+		Objects.checkFromIndexSize(off, len, out.length);
+		for(int i = off; i < off + len; i++){
+			out[i] = nextRandom();
+		}
+	}
+	
+	/**
+	 * Gives an infinite stream of random values distributed over this
+	 * distribution.
+	 * 
+	 * @return A stream of random values generated by {@link #nextRandom()}.
+	 */
+	public default DoubleStream samples(){
+		return DoubleStream.generate(this::nextRandom);
+	}
+	
+	/**
+	 * Gives a copy of this distribution that generates its random values 
+	 * with a given random generator. Implementations return an instance of 
+	 * their own class.
+	 * 
+	 * @param generator The random generator of the copy.
+	 * @return A copy of this distribution using <b>generator</b>.
+	 * @throws UnsupportedOperationException if the distribution can't be copied.
+	 */
+	public default ProbabilityDistribution withGenerator(RandomGenerator generator){
+		throw new UnsupportedOperationException();
+	}
+	
+	/**
+	 * Gives a copy of this distribution with a new random generator that
+	 * is split from the generator of this distribution. The copy and this
+	 * distribution can be sampled from different threads without sharing
+	 * any state, and if this distribution was given a seeded generator the 
+	 * copy generates the same values every time. <br></br><br></br>
+	 * 
+	 * To sample in parallel reproducibly, split one copy per task from a 
+	 * single thread before the tasks are started. Implementations return 
+	 * an instance of their own class.
+	 * 
+	 * @return An independently sampling copy of this distribution.
+	 * @throws UnsupportedOperationException if the distribution can't be split.
+	 * @see RandomGenerator.SplittableGenerator
+	 */
+	public default ProbabilityDistribution split(){
+		throw new UnsupportedOperationException();
+	}
+	
+	/**
+	 * Gives a thread local copy of a distribution, so that threads sharing
+	 * the distribution don't contend on its random generator. Each thread 
+	 * gets a copy {@link #split() split} from <b>distribution</b> the first 
+	 * time it calls {@link ThreadLocal#get()}. <br></br><br></br>
+	 * 
+	 * Since that order depends on the scheduling of the threads, the values
+	 * generated by each thread are not reproducible. Use {@link #split()} 
+	 * directly when they need to be. <br></br><br></br>
+	 * 
+	 * The splits synchronize on <b>distribution</b>, but its own sampling 
+	 * methods don't. <b>distribution</b> itself must therefore not be sampled
+	 * while other threads may be splitting copies from it, unless its 
+	 * generator is thread safe.
+	 * 
+	 * @param distribution The distribution to give each thread a copy of.
+	 * @return A thread local holding a copy of <b>distribution</b> per thread.
+	 * 			Its {@link ThreadLocal#get() get} method throws an 
+	 * 			IllegalStateException if the class of <b>distribution</b> 
+	 * 			doesn't override {@link #split()} to return its own class.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <D extends ProbabilityDistribution> ThreadLocal<D> forThread(D distribution){
+		Objects.requireNonNull(distribution);
+		return ThreadLocal.withInitial(() -> {
+			ProbabilityDistribution copy;
+			synchronized(distribution){
+				copy = distribution.split();
+			}
+			if(copy.getClass() != distribution.getClass()){
+				throw new IllegalStateException(distribution.getClass().getName() 
+						+ ".split() returned a " + copy.getClass().getName()
+						+ "; it must be overridden to return the same class");
+			}
+			return (D)copy;
+		});
+	}
 }
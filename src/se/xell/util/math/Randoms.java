@@ -0,0 +1,33 @@
+package se.xell.util.math;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * Helpers for the random generators of the probability distributions.
+ * 
+ * @author Tobias Axell
+ */
+final class Randoms {
+	
+	private Randoms(){}
+	
+	/**
+	 * Gives a new random generator that is statistically independent of a 
+	 * given one. Splittable generators, like {@link SplittableRandom} or 
+	 * L64X128MixRandom, are split. Any other generator is used to seed a 
+	 * new SplittableRandom. Either way the new generator is determined by 
+	 * the state of the given one, so a seeded generator gives reproducible 
+	 * splits.
+	 * 
+	 * @param generator The generator to split.
+	 * @return A new, independent random generator.
+	 */
+	static RandomGenerator split(RandomGenerator generator){
+		if(generator instanceof SplittableGenerator){
+			return ((SplittableGenerator)generator).split();
+		}
+		return new SplittableRandom(generator.nextLong());
+	}
+}
@@ -0,0 +1,46 @@
+package se.xell.util.math;
+
+import java.util.function.DoubleUnaryOperator;
+
+import se.xell.junky.Function1;
+
+/**
+ * A real valued function of one real variable. A RealFunction can be
+ * used both as a boxed <code>Function1&lt;Double, Double&gt;</code> and
+ * as a primitive <code>DoubleUnaryOperator</code>; implementations only
+ * have to provide {@link #applyAsDouble(double)}.
+ *
+ * @author Tobias Axell
+ */
+@FunctionalInterface
+public interface RealFunction extends Function1<Double, Double>, DoubleUnaryOperator {
+
+	/**
+	 * Evaluates the function at <b>x</b> without boxing.
+	 *
+	 * @param x The argument to the function.
+	 * @return The value of the function at <b>x</b>.
+	 */
+	@Override
+	public double applyAsDouble(double x);
+
+	@Override
+	public default Double f(Double x){
+		return applyAsDouble(x);
+	}
+
+	/**
+	 * Wraps a boxed function as a RealFunction. Note that evaluating
+	 * the returned function still boxes the argument and the result.
+	 *
+	 * @param f The function to wrap.
+	 * @return <b>f</b> itself if it already is a RealFunction, otherwise
+	 * 			a RealFunction delegating to <b>f</b>.
+	 */
+	public static RealFunction of(Function1<Double, Double> f){
+		if(f instanceof RealFunction){
+			return (RealFunction)f;
+		}
+		return x -> f.f(x);
+	}
+}
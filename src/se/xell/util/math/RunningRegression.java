@@ -0,0 +1,249 @@
+package se.xell.util.math;
+
+import java.io.Serializable;
+
+/**
+ * An incremental simple linear regression of a stream of (x, y) points.
+ * Instead of the points themselves only the number of points, the means
+ * and the co-moments of x and y are kept, so points can be added (and
+ * removed) in constant time and the fitted line is available at any time.
+ * Two regressions can be merged, which makes it possible to accumulate
+ * parts of a data set in parallel.
+ * <br></br><br></br>
+ *
+ * Removing points is done by reversing the updating formulas, which is
+ * less numerically stable than adding them: removing a point that
+ * dominates the sums cancels most of their digits. For a sliding window
+ * over a stream, see {@link WindowedRegression}, which recomputes its
+ * sums from the points in the window to avoid this.
+ * <br></br><br></br>
+ *
+ * This class is not thread safe.
+ *
+ * @author Tobias Axell
+ * @see AMath#linearRegress(double[], double[])
+ */
+public class RunningRegression implements Serializable {
+
+	private static final long serialVersionUID = 3529770781470262418L;
+
+	private long count;
+	private double meanX;
+	private double meanY;
+	private double sxx;
+	private double syy;
+	private double sxy;
+
+	/**
+	 * Constructor for RunningRegression. Creates a regression without any
+	 * points.
+	 */
+	public RunningRegression(){
+	}
+
+	/**
+	 * Copy constructor for RunningRegression. Creates a regression of the
+	 * same points as <b>other</b>, which is not modified.
+	 *
+	 * @param other The regression to copy.
+	 */
+	public RunningRegression(RunningRegression other){
+		count = other.count;
+		meanX = other.meanX;
+		meanY = other.meanY;
+		sxx = other.sxx;
+		syy = other.syy;
+		sxy = other.sxy;
+	}
+
+	/**
+	 * Adds a point to the regression.
+	 *
+	 * @param x The x coordinate of the point.
+	 * @param y The y coordinate of the point.
+	 */
+	public void add(double x, double y){
+		long n = ++count;
+		double dx = x - meanX;
+		double dy = y - meanY;
+		meanX += dx / n;
+		meanY += dy / n;
+		sxx += dx * (x - meanX);
+		syy += dy * (y - meanY);
+		sxy += dx * (y - meanY);
+	}
+
+	/**
+	 * Removes a point, previously added, from the regression.
+	 *
+	 * @param x The x coordinate of the point.
+	 * @param y The y coordinate of the point.
+	 * @throws IllegalStateException if the regression has no points.
+	 */
+	public void remove(double x, double y){
+		if(count == 0){
+			throw new IllegalStateException("No points to remove");
+		}
+		if(count == 1){
+			clear();
+			return;
+		}
+		long n = --count;
+		double oldMeanX = meanX - (x - meanX) / n;
+		double oldMeanY = meanY - (y - meanY) / n;
+		//Rounding can make the difference slightly negative
+		sxx = Math.max(0, sxx - (x - oldMeanX) * (x - meanX));
+		syy = Math.max(0, syy - (y - oldMeanY) * (y - meanY));
+		sxy -= (x - oldMeanX) * (y - meanY);
+		meanX = oldMeanX;
+		meanY = oldMeanY;
+	}
+
+	/**
+	 * Merges the points of another regression into this one.
+	 * <b>other</b> is not modified.
+	 *
+	 * @param other The regression to merge into this one.
+	 * @return This regression.
+	 */
+	public RunningRegression combine(RunningRegression other){
+		if(other.count == 0){
+			return this;
+		}
+		double na = count;
+		double nb = other.count;
+		double n = na + nb;
+		double dx = other.meanX - meanX;
+		double dy = other.meanY - meanY;
+		double f = na * nb / n;
+
+		sxx += other.sxx + dx * dx * f;
+		syy += other.syy + dy * dy * f;
+		sxy += other.sxy + dx * dy * f;
+		meanX += dx * nb / n;
+		meanY += dy * nb / n;
+		count += other.count;
+		return this;
+	}
+
+	/**
+	 * Removes all points from the regression.
+	 */
+	public void clear(){
+		count = 0;
+		meanX = 0;
+		meanY = 0;
+		sxx = 0;
+		syy = 0;
+		sxy = 0;
+	}
+
+	/**
+	 * Gives the number of points in the regression.
+	 *
+	 * @return The number of points.
+	 */
+	public long getCount(){
+		return count;
+	}
+
+	/**
+	 * Gives the slope, <i>k</i>, of the fitted line.
+	 *
+	 * @return The slope of the fitted line, or NaN if fewer than two
+	 * 			distinct x coordinates have been added.
+	 */
+	public double getSlope(){
+		return sxy / sxx;
+	}
+
+	/**
+	 * Gives the intercept, <i>m</i>, of the fitted line.
+	 *
+	 * @return The intercept of the fitted line, or NaN if fewer than two
+	 * 			distinct x coordinates have been added.
+	 */
+	public double getIntercept(){
+		return meanY - getSlope() * meanX;
+	}
+
+	/**
+	 * Gives the line fitting the points in the regression as well as possible.
+	 *
+	 * @return A linear function, <code>f(x)=kx+m</code>, that fits the
+	 * 			points as well as possible.
+	 */
+	public LinearFunction toLinearFunction(){
+		return new LinearFunction(getSlope(), getIntercept());
+	}
+
+	/**
+	 * Gives the coefficient of determination, <i>R<sup>2</sup></i>, of
+	 * the fitted line, i.e. the proportion of the variance in y that is
+	 * explained by the line.
+	 *
+	 * @return The coefficient of determination.
+	 */
+	public double getRSquared(){
+		if(syy == 0){
+			return 1;
+		}
+		return sxy * sxy / (sxx * syy);
+	}
+
+	/**
+	 * Gives the sum of the squared residuals of the fitted line.
+	 *
+	 * @return The residual sum of squares.
+	 */
+	public double getResidualSumOfSquares(){
+		return Math.max(0, syy - sxy * sxy / sxx);
+	}
+
+	/**
+	 * Gives the standard error of the slope of the fitted line.
+	 *
+	 * @return The standard error of the slope, or NaN if fewer than
+	 * 			three points have been added.
+	 */
+	public double getSlopeStandardError(){
+		return Math.sqrt(residualVariance() / sxx);
+	}
+
+	/**
+	 * Gives the standard error of the intercept of the fitted line.
+	 *
+	 * @return The standard error of the intercept, or NaN if fewer than
+	 * 			three points have been added.
+	 */
+	public double getInterceptStandardError(){
+		return Math.sqrt(residualVariance() * (1.0 / count + meanX * meanX / sxx));
+	}
+
+	/**
+	 * Gives the sum of the squared deviations of x from its mean.
+	 */
+	double sxx(){
+		return sxx;
+	}
+
+	/**
+	 * Gives the sum of the squared deviations of y from its mean.
+	 */
+	double syy(){
+		return syy;
+	}
+
+	private double residualVariance(){
+		if(count < 3){
+			return Double.NaN;
+		}
+		return getResidualSumOfSquares() / (count - 2);
+	}
+
+	@Override
+	public String toString(){
+		return "RunningRegression{count=" + count + ", k=" + getSlope() +
+				", m=" + getIntercept() + ", R^2=" + getRSquared() + "}";
+	}
+}
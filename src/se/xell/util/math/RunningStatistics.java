@@ -0,0 +1,304 @@
+package se.xell.util.math;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.random.RandomGenerator;
+import java.util.function.DoubleConsumer;
+import java.util.stream.DoubleStream;
+
+/**
+ * An accumulator of statistics for a stream of values that doesn't need
+ * to store the values themselves. Every value is added in constant time
+ * using Welford's updating formulas, and two accumulators can be combined
+ * using the pairwise formulas of Chan and Pébay, which makes it possible
+ * to accumulate parts of a sample in parallel or on different nodes.
+ * <br></br><br></br>
+ *
+ * A RunningStatistics can be used as a collector of a <code>DoubleStream</code>:
+ * <br></br><br></br>
+ * <code>
+ * stream.collect(RunningStatistics::new, RunningStatistics::accept, RunningStatistics::combine);
+ * </code>
+ * <br></br><br></br>
+ *
+ * This class is not thread safe.
+ *
+ * @author Tobias Axell
+ */
+public class RunningStatistics implements DoubleConsumer, Serializable {
+
+	private static final long serialVersionUID = -6118927512047780215L;
+
+	/**
+	 * The smallest array that {@link #ofParallel(double[])} splits up.
+	 */
+	static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	private long count;
+	private double mean;
+	private double m2;
+	private double m3;
+	private double m4;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Constructor for RunningStatistics. Creates an empty accumulator.
+	 */
+	public RunningStatistics(){
+	}
+
+	/**
+	 * Accumulates all values of a stream, in parallel if the stream is parallel.
+	 *
+	 * @param values The values to accumulate.
+	 * @return The statistics of <b>values</b>.
+	 */
+	public static RunningStatistics of(DoubleStream values){
+		return values.collect(RunningStatistics::new, RunningStatistics::accept,
+				RunningStatistics::combine);
+	}
+
+	/**
+	 * Accumulates all values of an array.
+	 *
+	 * @param values The values to accumulate.
+	 * @return The statistics of <b>values</b>.
+	 */
+	public static RunningStatistics of(double[] values){
+		RunningStatistics s = new RunningStatistics();
+		for(int i = 0; i < values.length; i++){
+			s.accept(values[i]);
+		}
+		return s;
+	}
+
+	/**
+	 * Accumulates all values of an array, in parallel on the common 
+	 * ForkJoinPool if the array is large.
+	 *
+	 * @param values The values to accumulate.
+	 * @return The statistics of <b>values</b>.
+	 */
+	public static RunningStatistics ofParallel(double[] values){
+		if(values.length < PARALLEL_THRESHOLD){
+			return of(values);
+		}
+		return of(Arrays.stream(values).parallel());
+	}
+
+	/**
+	 * Adds a value to the accumulated statistics.
+	 *
+	 * @param x The value to add.
+	 */
+	@Override
+	public void accept(double x){
+		long n1 = count;
+		long n = ++count;
+		double delta = x - mean;
+		double deltaN = delta / n;
+		double deltaN2 = deltaN * deltaN;
+		double term1 = delta * deltaN * n1;
+
+		mean += deltaN;
+		m4 += term1 * deltaN2 * ((double)n * n - 3.0 * n + 3)
+				+ 6 * deltaN2 * m2 - 4 * deltaN * m3;
+		m3 += term1 * deltaN * (n - 2) - 3 * deltaN * m2;
+		m2 += term1;
+
+		min = Math.min(min, x);
+		max = Math.max(max, x);
+	}
+
+	/**
+	 * Merges the statistics of another accumulator into this one.
+	 * Afterwards this accumulator holds the statistics of the values
+	 * added to either of them. <b>other</b> is not modified.
+	 *
+	 * @param other The accumulator to merge into this one.
+	 * @return This accumulator.
+	 */
+	public RunningStatistics combine(RunningStatistics other){
+		if(other.count == 0){
+			return this;
+		}
+		if(count == 0){
+			count = other.count;
+			mean = other.mean;
+			m2 = other.m2;
+			m3 = other.m3;
+			m4 = other.m4;
+			min = other.min;
+			max = other.max;
+			return this;
+		}
+
+		double na = count;
+		double nb = other.count;
+		double n = na + nb;
+		double delta = other.mean - mean;
+		double delta2 = delta * delta;
+		double delta3 = delta2 * delta;
+		double delta4 = delta2 * delta2;
+
+		double newM2 = m2 + other.m2 + delta2 * na * nb / n;
+		double newM3 = m3 + other.m3
+				+ delta3 * na * nb * (na - nb) / (n * n)
+				+ 3 * delta * (na * other.m2 - nb * m2) / n;
+		double newM4 = m4 + other.m4
+				+ delta4 * na * nb * (na * na - na * nb + nb * nb) / (n * n * n)
+				+ 6 * delta2 * (na * na * other.m2 + nb * nb * m2) / (n * n)
+				+ 4 * delta * (na * other.m3 - nb * m3) / n;
+
+		count += other.count;
+		mean += delta * nb / n;
+		m2 = newM2;
+		m3 = newM3;
+		m4 = newM4;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		return this;
+	}
+
+	/**
+	 * Gives the number of values added.
+	 *
+	 * @return The number of values added.
+	 */
+	public long getCount(){
+		return count;
+	}
+
+	/**
+	 * Gives the sum of the values added.
+	 *
+	 * @return The sum of the values added.
+	 */
+	public double getSum(){
+		return mean * count;
+	}
+
+	/**
+	 * Gives the mean of the values added.
+	 *
+	 * @return The mean of the values added, or NaN if no values
+	 * 			have been added.
+	 */
+	public double getMean(){
+		return count == 0 ? Double.NaN : mean;
+	}
+
+	/**
+	 * Gives the (unbiased) sample variance of the values added.
+	 *
+	 * @return The sample variance of the values added, or NaN if
+	 * 			fewer than two values have been added.
+	 */
+	public double getVariance(){
+		return count < 2 ? Double.NaN : m2 / (count - 1);
+	}
+
+	/**
+	 * Gives the population variance of the values added, i.e. the
+	 * variance if the added values are the entire population.
+	 *
+	 * @return The population variance of the values added, or NaN if
+	 * 			no values have been added.
+	 */
+	public double getPopulationVariance(){
+		return count == 0 ? Double.NaN : m2 / count;
+	}
+
+	/**
+	 * Gives the sample standard deviation of the values added.
+	 *
+	 * @return The square root of {@link #getVariance()}.
+	 */
+	public double getStandardDeviation(){
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * Gives the (population) skewness of the values added.
+	 *
+	 * @return The skewness of the values added, or NaN if fewer than
+	 * 			two distinct values have been added.
+	 */
+	public double getSkewness(){
+		if(count == 0 || m2 == 0){
+			return Double.NaN;
+		}
+		return Math.sqrt((double)count) * m3 / Math.pow(m2, 1.5);
+	}
+
+	/**
+	 * Gives the (population) excess kurtosis of the values added. The
+	 * excess kurtosis of a normal distribution is 0.
+	 *
+	 * @return The excess kurtosis of the values added, or NaN if fewer
+	 * 			than two distinct values have been added.
+	 */
+	public double getKurtosis(){
+		if(count == 0 || m2 == 0){
+			return Double.NaN;
+		}
+		return count * m4 / (m2 * m2) - 3;
+	}
+
+	/**
+	 * Gives the smallest value added.
+	 *
+	 * @return The smallest value added, or positive infinity if
+	 * 			no values have been added.
+	 */
+	public double getMin(){
+		return min;
+	}
+
+	/**
+	 * Gives the largest value added.
+	 *
+	 * @return The largest value added, or negative infinity if
+	 * 			no values have been added.
+	 */
+	public double getMax(){
+		return max;
+	}
+
+	/**
+	 * Gives the normal distribution fitting the added values, using
+	 * the mean and the sample variance of the values.
+	 *
+	 * @return A normal distribution fitted to the added values.
+	 * @throws IllegalArgumentException if the sample variance isn't
+	 * 			greater than 0.
+	 */
+	public NormalDistribution toNormalDistribution(){
+		return toNormalDistribution(new Random());
+	}
+
+	/**
+	 * Gives the normal distribution fitting the added values, using
+	 * the mean and the sample variance of the values.
+	 *
+	 * @param generator A random generator for the returned distribution.
+	 * @return A normal distribution fitted to the added values.
+	 * @throws IllegalArgumentException if the sample variance isn't
+	 * 			greater than 0.
+	 */
+	public NormalDistribution toNormalDistribution(RandomGenerator generator){
+		double variance = getVariance();
+		if(!(variance > 0)){
+			throw new IllegalArgumentException("At least two distinct values are needed");
+		}
+		return new NormalDistribution(getMean(), variance, generator);
+	}
+
+	@Override
+	public String toString(){
+		return "RunningStatistics{count=" + count + ", mean=" + getMean() +
+				", variance=" + getVariance() + ", min=" + min + ", max=" + max + "}";
+	}
+}
@@ -0,0 +1,144 @@
+package se.xell.util.math;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads samples stored as binary doubles from memory mapped files. This
+ * way a sample larger than the heap can be streamed, in parallel, e.g. to 
+ * {@link RunningStatistics#of(DoubleStream)} or the <code>fit</code> 
+ * methods of the distributions: <br></br><br></br>
+ * <code>
+ * NormalDistribution d = NormalDistribution.fit(SampleFile.doubles(path));
+ * </code>
+ * 
+ * @author Tobias Axell
+ */
+public final class SampleFile {
+	
+	/**
+	 * Files are mapped in regions of 2^27 doubles (1 GiB), since a mapping
+	 * can't be larger than 2 GiB.
+	 */
+	private static final int REGION_SHIFT = 27;
+	private static final int REGION_MASK = (1 << REGION_SHIFT) - 1;
+	
+	private SampleFile(){}
+	
+	/**
+	 * Gives a parallel stream of the doubles of a file, stored in big 
+	 * endian byte order as written by e.g. <code>DataOutputStream</code>.
+	 * 
+	 * @param file The file to read.
+	 * @return A parallel stream of the doubles in <b>file</b>.
+	 * @throws IOException if the file can't be opened or mapped.
+	 * @throws IllegalArgumentException if the length of the file isn't a 
+	 * 			multiple of 8 bytes.
+	 */
+	public static DoubleStream doubles(Path file) throws IOException {
+		return doubles(file, ByteOrder.BIG_ENDIAN);
+	}
+	
+	/**
+	 * Gives a parallel stream of the doubles of a file, stored in a given
+	 * byte order. The file is mapped read only, and the stream splits it 
+	 * into balanced ranges for parallel processing.
+	 * 
+	 * @param file The file to read.
+	 * @param order The byte order of the doubles in the file.
+	 * @return A parallel stream of the doubles in <b>file</b>.
+	 * @throws IOException if the file can't be opened or mapped.
+	 * @throws IllegalArgumentException if the length of the file isn't a 
+	 * 			multiple of 8 bytes.
+	 */
+	public static DoubleStream doubles(Path file, ByteOrder order) throws IOException {
+		DoubleBuffer[] regions;
+		long count;
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			long size = channel.size();
+			if(size % Double.BYTES != 0){
+				throw new IllegalArgumentException("The length of the file is not a multiple of 8");
+			}
+			count = size / Double.BYTES;
+			int n = (int)((count + REGION_MASK) >>> REGION_SHIFT);
+			regions = new DoubleBuffer[n];
+			for(int i = 0; i < n; i++){
+				long start = (long)i << REGION_SHIFT;
+				long length = Math.min(count - start, 1L << REGION_SHIFT);
+				//The mapping stays valid after the channel is closed.
+				regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, 
+						start * Double.BYTES, length * Double.BYTES).order(order).asDoubleBuffer();
+			}
+		}
+		return StreamSupport.doubleStream(new RegionSpliterator(regions, 0, count), true);
+	}
+	
+	/**
+	 * A spliterator over the doubles with indices [index, end) of the 
+	 * mapped regions, splitting in halves.
+	 */
+	private static final class RegionSpliterator implements Spliterator.OfDouble {
+		
+		private final DoubleBuffer[] regions;
+		private long index;
+		private final long end;
+		
+		RegionSpliterator(DoubleBuffer[] regions, long index, long end){
+			this.regions = regions;
+			this.index = index;
+			this.end = end;
+		}
+		
+		@Override
+		public boolean tryAdvance(DoubleConsumer action){
+			if(index >= end){
+				return false;
+			}
+			action.accept(regions[(int)(index >>> REGION_SHIFT)].get((int)index & REGION_MASK));
+			index++;
+			return true;
+		}
+		
+		@Override
+		public void forEachRemaining(DoubleConsumer action){
+			while(index < end){
+				DoubleBuffer region = regions[(int)(index >>> REGION_SHIFT)];
+				int from = (int)index & REGION_MASK;
+				int to = (int)Math.min(region.limit(), from + (end - index));
+				for(int i = from; i < to; i++){
+					action.accept(region.get(i));
+				}
+				index += to - from;
+			}
+		}
+		
+		@Override
+		public Spliterator.OfDouble trySplit(){
+			long mid = (index + end) >>> 1;
+			if(mid - index < 1024){
+				return null;
+			}
+			RegionSpliterator prefix = new RegionSpliterator(regions, index, mid);
+			index = mid;
+			return prefix;
+		}
+		
+		@Override
+		public long estimateSize(){
+			return end - index;
+		}
+		
+		@Override
+		public int characteristics(){
+			return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package se.xell.util.math;
+
+/**
+ * The result of a root finding or minimization by {@link Solvers}.
+ *
+ * @author Tobias Axell
+ */
+public final class SolverResult {
+
+	private final double x;
+	private final double value;
+	private final int iterations;
+	private final int evaluations;
+	private final boolean converged;
+
+	SolverResult(double x, double value, int iterations, int evaluations, boolean converged){
+		this.x = x;
+		this.value = value;
+		this.iterations = iterations;
+		this.evaluations = evaluations;
+		this.converged = converged;
+	}
+
+	/**
+	 * Gives the root or minimum found.
+	 *
+	 * @return The x coordinate of the root or minimum.
+	 */
+	public double getX(){
+		return x;
+	}
+
+	/**
+	 * Gives the value of the function at the root or minimum found.
+	 *
+	 * @return The function value at {@link #getX()}.
+	 */
+	public double getValue(){
+		return value;
+	}
+
+	/**
+	 * Gives the number of iterations performed.
+	 *
+	 * @return The number of iterations.
+	 */
+	public int getIterations(){
+		return iterations;
+	}
+
+	/**
+	 * Gives the number of times the function was evaluated.
+	 *
+	 * @return The number of function evaluations.
+	 */
+	public int getEvaluations(){
+		return evaluations;
+	}
+
+	/**
+	 * Tells whether the requested tolerance was reached before the maximum
+	 * number of iterations.
+	 *
+	 * @return true if the solver converged, otherwise false.
+	 */
+	public boolean isConverged(){
+		return converged;
+	}
+
+	@Override
+	public String toString(){
+		return "SolverResult{x=" + x + ", f(x)=" + value + ", iterations=" + iterations +
+				", evaluations=" + evaluations + ", converged=" + converged + "}";
+	}
+}
@@ -0,0 +1,391 @@
+package se.xell.util.math;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Root finding and one dimensional minimization of real functions. All
+ * methods in this class are static and the class cannot be instantiated.
+ * <br></br><br></br>
+ *
+ * The methods take primitive functions and return a {@link SolverResult}
+ * with the number of iterations and function evaluations used.
+ *
+ * @author Tobias Axell
+ */
+public final class Solvers {
+
+	//Making the constructor private in order to prevent
+	//people from creating instances of this class.
+	private Solvers(){}
+
+	/**
+	 * Standard maximum number of iterations of the solvers.
+	 */
+	public static final int STANDARD_MAX_ITERATIONS = 200;
+
+	private static final double EPS = Math.ulp(1.0);
+	private static final double GOLDEN = 0.3819660112501051;
+
+	/**
+	 * Finds a root of a function in an interval using Brent's method, which
+	 * combines bisection, the secant method and inverse quadratic
+	 * interpolation. It converges as reliably as bisection, and usually
+	 * superlinearly.
+	 *
+	 * @param f - The function to find a root of.
+	 * @param a - The start of the interval.
+	 * @param b - The end of the interval.
+	 * @param tolerance - The absolute tolerance of the root. With a tolerance
+	 * 				of 0 the root is found to (about) machine precision,
+	 * 				relative to the root or, for roots near 0, to the width
+	 * 				of [<b>a</b>, <b>b</b>].
+	 * @param maxIterations - The maximum number of iterations.
+	 * @return The root found.
+	 * @throws IllegalArgumentException if <b>f(a)</b> and <b>f(b)</b> have the
+	 * 			same sign, i.e. the interval doesn't bracket a root.
+	 */
+	public static SolverResult brentRoot(DoubleUnaryOperator f, double a, double b,
+			double tolerance, int maxIterations){
+		double fa = f.applyAsDouble(a);
+		double fb = f.applyAsDouble(b);
+		int evaluations = 2;
+		if(fa == 0){
+			return new SolverResult(a, fa, 0, evaluations, true);
+		} else if(fb == 0){
+			return new SolverResult(b, fb, 0, evaluations, true);
+		} else if((fa > 0) == (fb > 0)){
+			throw new IllegalArgumentException("f(a) and f(b) must have different signs");
+		}
+
+		//A purely relative tolerance would never be met by a root at 0.
+		double floor = EPS * Math.abs(b - a);
+		double width = Math.abs(b - a);
+		int slowIterations = 0;
+		double c = a;
+		double fc = fa;
+		double d = b - a;
+		double e = d;
+		for(int iteration = 1; iteration <= maxIterations; iteration++){
+			if((fb > 0) == (fc > 0)){
+				c = a;
+				fc = fa;
+				d = b - a;
+				e = d;
+			}
+			if(Math.abs(fc) < Math.abs(fb)){
+				a = b;
+				b = c;
+				c = a;
+				fa = fb;
+				fb = fc;
+				fc = fa;
+			}
+
+			double tol = Math.max(2 * EPS * Math.abs(b), floor) + 0.5 * tolerance;
+			double m = 0.5 * (c - b);
+			if(Math.abs(m) <= tol || fb == 0){
+				return new SolverResult(b, fb, iteration, evaluations, true);
+			}
+			//Interpolation can creep towards e.g. a multiple root, so bisect 
+			//if the bracket hasn't been halved in two iterations.
+			if(Math.abs(m) <= 0.25 * width){
+				width = 2 * Math.abs(m);
+				slowIterations = 0;
+			} else {
+				slowIterations++;
+			}
+
+			if(slowIterations < 2 && Math.abs(e) >= tol && Math.abs(fa) > Math.abs(fb)){
+				double s = fb / fa;
+				double p;
+				double q;
+				if(a == c){
+					//Secant
+					p = 2 * m * s;
+					q = 1 - s;
+				} else {
+					//Inverse quadratic interpolation
+					double r = fb / fc;
+					q = fa / fc;
+					p = s * (2 * m * q * (q - r) - (b - a) * (r - 1));
+					q = (q - 1) * (r - 1) * (s - 1);
+				}
+				if(p > 0){
+					q = -q;
+				} else {
+					p = -p;
+				}
+				if(2 * p < Math.min(3 * m * q - Math.abs(tol * q), Math.abs(e * q))){
+					e = d;
+					d = p / q;
+				} else {
+					d = m;
+					e = m;
+				}
+			} else {
+				d = m;
+				e = m;
+			}
+
+			a = b;
+			fa = fb;
+			b += Math.abs(d) > tol ? d : Math.copySign(tol, m);
+			fb = f.applyAsDouble(b);
+			evaluations++;
+		}
+		return new SolverResult(b, fb, maxIterations, evaluations, false);
+	}
+
+	/**
+	 * Finds a root of a function in an interval using Brent's method, to
+	 * machine precision.
+	 *
+	 * @param f - The function to find a root of.
+	 * @param a - The start of the interval.
+	 * @param b - The end of the interval.
+	 * @return The root found.
+	 * @throws IllegalArgumentException if <b>f(a)</b> and <b>f(b)</b> have the
+	 * 			same sign.
+	 * @see #brentRoot(DoubleUnaryOperator, double, double, double, int)
+	 */
+	public static SolverResult brentRoot(DoubleUnaryOperator f, double a, double b){
+		return brentRoot(f, a, b, 0, STANDARD_MAX_ITERATIONS);
+	}
+
+	/**
+	 * Finds a root of a function in an interval using Newton's method,
+	 * safeguarded by bisection: whenever a Newton step would leave the
+	 * interval bracketing the root, or doesn't shrink it fast enough, the
+	 * interval is bisected instead.
+	 *
+	 * @param f - The function to find a root of.
+	 * @param df - The derivative of <b>f</b>.
+	 * @param a - The start of the interval.
+	 * @param b - The end of the interval.
+	 * @param x0 - The initial guess, in [<b>a</b>, <b>b</b>].
+	 * @param tolerance - The absolute tolerance of the root.
+	 * @param maxIterations - The maximum number of iterations.
+	 * @return The root found. The number of evaluations counts evaluations of
+	 * 			<b>f</b>; <b>df</b> is evaluated once per iteration as well.
+	 * @throws IllegalArgumentException if <b>f(a)</b> and <b>f(b)</b> have the
+	 * 			same sign.
+	 */
+	public static SolverResult newtonRoot(DoubleUnaryOperator f, DoubleUnaryOperator df,
+			double a, double b, double x0, double tolerance, int maxIterations){
+		return newtonRoot(x -> DualNumber.variable(x).chain(f.applyAsDouble(x), df.applyAsDouble(x)),
+				a, b, x0, tolerance, maxIterations);
+	}
+
+	/**
+	 * Finds a root of a differentiable function in an interval using
+	 * safeguarded Newton's method, where the derivative is calculated
+	 * together with the function value by automatic differentiation.
+	 *
+	 * @param f - The function to find a root of.
+	 * @param a - The start of the interval.
+	 * @param b - The end of the interval.
+	 * @param x0 - The initial guess, in [<b>a</b>, <b>b</b>].
+	 * @param tolerance - The absolute tolerance of the root.
+	 * @param maxIterations - The maximum number of iterations.
+	 * @return The root found.
+	 * @throws IllegalArgumentException if <b>f(a)</b> and <b>f(b)</b> have the
+	 * 			same sign.
+	 * @see #newtonRoot(DoubleUnaryOperator, DoubleUnaryOperator, double, double, double, double, int)
+	 */
+	public static SolverResult newtonRoot(DifferentiableFunction f,
+			double a, double b, double x0, double tolerance, int maxIterations){
+		return newtonRoot(x -> f.apply(DualNumber.variable(x)), a, b, x0, tolerance, maxIterations);
+	}
+
+	/**
+	 * Finds a root of a differentiable function in an interval using
+	 * safeguarded Newton's method, starting in the middle of the interval,
+	 * to (about) machine precision.
+	 *
+	 * @param f - The function to find a root of.
+	 * @param a - The start of the interval.
+	 * @param b - The end of the interval.
+	 * @return The root found.
+	 * @throws IllegalArgumentException if <b>f(a)</b> and <b>f(b)</b> have the
+	 * 			same sign.
+	 */
+	public static SolverResult newtonRoot(DifferentiableFunction f, double a, double b){
+		double tolerance = 4 * EPS * Math.max(Math.abs(a), Math.abs(b));
+		return newtonRoot(f, a, b, 0.5 * (a + b), tolerance, STANDARD_MAX_ITERATIONS);
+	}
+
+	/**
+	 * The value and derivative of a function at a point.
+	 */
+	private interface Derivable {
+		DualNumber at(double x);
+	}
+
+	private static SolverResult newtonRoot(Derivable f, double a, double b, double x0,
+			double tolerance, int maxIterations){
+		double fa = f.at(a).value();
+		double fb = f.at(b).value();
+		int evaluations = 2;
+		if(fa == 0){
+			return new SolverResult(a, fa, 0, evaluations, true);
+		} else if(fb == 0){
+			return new SolverResult(b, fb, 0, evaluations, true);
+		} else if((fa > 0) == (fb > 0)){
+			throw new IllegalArgumentException("f(a) and f(b) must have different signs");
+		}
+
+		//Orient the bracket so that f(low) < 0 < f(high)
+		double low = fa < 0 ? a : b;
+		double high = fa < 0 ? b : a;
+		double x = Math.min(Math.max(x0, Math.min(a, b)), Math.max(a, b));
+		double dxOld = Math.abs(b - a);
+		double dx = dxOld;
+		DualNumber y = f.at(x);
+		evaluations++;
+		for(int iteration = 1; iteration <= maxIterations; iteration++){
+			double fx = y.value();
+			double dfx = y.derivative();
+			if(fx == 0){
+				return new SolverResult(x, fx, iteration, evaluations, true);
+			}
+			if(((x - high) * dfx - fx) * ((x - low) * dfx - fx) > 0
+					|| Math.abs(2 * fx) > Math.abs(dxOld * dfx)){
+				//Bisect
+				dxOld = dx;
+				dx = 0.5 * (high - low);
+				x = low + dx;
+			} else {
+				//Newton
+				dxOld = dx;
+				dx = fx / dfx;
+				x -= dx;
+			}
+			y = f.at(x);
+			evaluations++;
+			if(Math.abs(dx) <= tolerance){
+				return new SolverResult(x, y.value(), iteration, evaluations, true);
+			}
+			if(y.value() < 0){
+				low = x;
+			} else {
+				high = x;
+			}
+		}
+		return new SolverResult(x, y.value(), maxIterations, evaluations, false);
+	}
+
+	/**
+	 * Finds a (local) minimum of a function in an interval using Brent's
+	 * method, which combines golden section search with successive
+	 * parabolic interpolation.
+	 *
+	 * @param f - The function to minimize.
+	 * @param a - The start of the interval.
+	 * @param b - The end of the interval.
+	 * @param tolerance - The relative tolerance of the minimum. Tolerances
+	 * 				below the square root of the machine precision (about 1.5e-8)
+	 * 				are not meaningful.
+	 * @param maxIterations - The maximum number of iterations.
+	 * @return The minimum found.
+	 */
+	public static SolverResult brentMinimize(DoubleUnaryOperator f, double a, double b,
+			double tolerance, int maxIterations){
+		if(a > b){
+			double t = a;
+			a = b;
+			b = t;
+		}
+		double x = a + GOLDEN * (b - a);
+		double w = x;
+		double v = x;
+		double fx = f.applyAsDouble(x);
+		double fw = fx;
+		double fv = fx;
+		int evaluations = 1;
+		double d = 0;
+		double e = 0;
+		for(int iteration = 1; iteration <= maxIterations; iteration++){
+			double m = 0.5 * (a + b);
+			double tol = tolerance * Math.abs(x) + 1e-10;
+			double tol2 = 2 * tol;
+			if(Math.abs(x - m) <= tol2 - 0.5 * (b - a)){
+				return new SolverResult(x, fx, iteration, evaluations, true);
+			}
+
+			boolean golden = true;
+			if(Math.abs(e) > tol){
+				//Try a parabola through x, v and w
+				double r = (x - w) * (fx - fv);
+				double q = (x - v) * (fx - fw);
+				double p = (x - v) * q - (x - w) * r;
+				q = 2 * (q - r);
+				if(q > 0){
+					p = -p;
+				} else {
+					q = -q;
+				}
+				double eOld = e;
+				e = d;
+				if(Math.abs(p) < Math.abs(0.5 * q * eOld) && p > q * (a - x) && p < q * (b - x)){
+					d = p / q;
+					double u = x + d;
+					if(u - a < tol2 || b - u < tol2){
+						d = Math.copySign(tol, m - x);
+					}
+					golden = false;
+				}
+			}
+			if(golden){
+				e = x >= m ? a - x : b - x;
+				d = GOLDEN * e;
+			}
+
+			double u = Math.abs(d) >= tol ? x + d : x + Math.copySign(tol, d);
+			double fu = f.applyAsDouble(u);
+			evaluations++;
+			if(fu <= fx){
+				if(u >= x){
+					a = x;
+				} else {
+					b = x;
+				}
+				v = w;
+				fv = fw;
+				w = x;
+				fw = fx;
+				x = u;
+				fx = fu;
+			} else {
+				if(u < x){
+					a = u;
+				} else {
+					b = u;
+				}
+				if(fu <= fw || w == x){
+					v = w;
+					fv = fw;
+					w = u;
+					fw = fu;
+				} else if(fu <= fv || v == x || v == w){
+					v = u;
+					fv = fu;
+				}
+			}
+		}
+		return new SolverResult(x, fx, maxIterations, evaluations, false);
+	}
+
+	/**
+	 * Finds a (local) minimum of a function in an interval using Brent's
+	 * method, with a relative tolerance of about 1.5e-8.
+	 *
+	 * @param f - The function to minimize.
+	 * @param a - The start of the interval.
+	 * @param b - The end of the interval.
+	 * @return The minimum found.
+	 * @see #brentMinimize(DoubleUnaryOperator, double, double, double, int)
+	 */
+	public static SolverResult brentMinimize(DoubleUnaryOperator f, double a, double b){
+		return brentMinimize(f, a, b, Math.sqrt(EPS), STANDARD_MAX_ITERATIONS);
+	}
+}
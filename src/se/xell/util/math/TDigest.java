@@ -0,0 +1,680 @@
+package se.xell.util.math;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.DoubleConsumer;
+import java.util.random.RandomGenerator;
+
+/**
+ * A t-digest; a sketch of the distribution of a stream of values that
+ * uses bounded memory no matter how many values are added, while keeping
+ * the quantiles accurate, especially in the tails. The sketch is itself
+ * a continuous distribution, so it can be queried and sampled like any
+ * other. <br></br><br></br>
+ *
+ * Values are collected in a buffer, which is sorted and merged into a
+ * sorted list of centroids (weighted means) when it is full, so adding a
+ * value takes constant amortized time. When merging, neighbouring
+ * centroids are combined as long as they stay within both the arcsine and
+ * the logarithmic scale functions of Dunning and Ertl, which allows about
+ * <i>compression</i> centroids, each small near the tails and large near
+ * the median. The mean, the variance, the minimum and the maximum are
+ * tracked exactly.
+ * <br></br><br></br>
+ *
+ * The distribution of the sketch is piecewise linear between the
+ * minimum, the centroid means and the maximum, where half of the weight
+ * of each centroid lies on either side of its mean. Evaluating the
+ * cumulative density, the quantile function or generating a random value
+ * is therefore a binary search over the centroids. <br></br><br></br>
+ *
+ * Sketches of different parts of a stream, e.g. from different threads or
+ * nodes, can be combined with {@link #merge(TDigest)}, and a sketch can
+ * be sent between nodes with {@link #toByteArray()} and
+ * {@link #fromByteArray(byte[])}. A TDigest can be used as a collector of
+ * a <code>DoubleStream</code>: <br></br><br></br>
+ * <code>
+ * stream.collect(() -&gt; new TDigest(100), TDigest::add, TDigest::merge);
+ * </code>
+ * <br></br><br></br>
+ *
+ * A TDigest is not thread safe; queries may also compress the sketch.
+ *
+ * @author Tobias Axell
+ */
+public class TDigest implements ContinuousDistribution, DoubleConsumer {
+
+	private static final byte FORMAT_VERSION = 1;
+
+	/**
+	 * The number of values buffered per unit of compression.
+	 */
+	private static final int BUFFER_FACTOR = 8;
+
+	private final double compression;
+
+	private double[] means;
+	private long[] weights;
+	private int size;
+
+	/**
+	 * The arrays that the next merge writes the centroids to.
+	 */
+	private double[] spareMeans;
+	private long[] spareWeights;
+
+	private final double[] buffer;
+	private int buffered;
+
+	private long count;
+	private double mean;
+	private double m2;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * The corners of the piecewise linear cumulative density, built from
+	 * the centroids when needed.
+	 */
+	private double[] knotValues;
+	private double[] knotProbabilities;
+	private int knots;
+	private boolean knotsValid;
+
+	protected final RandomGenerator randomGenerator;
+
+	/**
+	 * Constructor for TDigest. Creates an empty sketch with a compression
+	 * of 100, which keeps quantiles within about 0.1 % of the median and
+	 * much closer in the tails.
+	 */
+	public TDigest(){
+		this(100);
+	}
+
+	/**
+	 * Constructor for TDigest. Creates an empty sketch.
+	 *
+	 * @param compression The compression of the sketch, roughly the number
+	 * 			of centroids kept. Larger values are more accurate but use
+	 * 			more memory and time.
+	 */
+	public TDigest(double compression){
+		this(compression, new Random());
+	}
+
+	/**
+	 * Constructor for TDigest. Creates an empty sketch.
+	 *
+	 * @param compression The compression of the sketch, roughly the number
+	 * 			of centroids kept. Larger values are more accurate but use
+	 * 			more memory and time.
+	 * @param generator A random generator for generating random numbers of this distribution.
+	 * @throws IllegalArgumentException if <b>compression</b> is less than 10
+	 * 			or greater than 100000.
+	 */
+	public TDigest(double compression, RandomGenerator generator){
+		if(generator == null){
+			throw new NullPointerException();
+		}
+		if(!(compression >= 10 && compression <= 100000)){
+			throw new IllegalArgumentException("compression must be in [10, 100000]");
+		}
+		this.compression = compression;
+		int capacity = (int)Math.ceil(compression) + 8;
+		this.means = new double[capacity];
+		this.weights = new long[capacity];
+		this.spareMeans = new double[capacity];
+		this.spareWeights = new long[capacity];
+		this.buffer = new double[BUFFER_FACTOR * (int)Math.ceil(compression)];
+		this.randomGenerator = generator;
+	}
+
+	private TDigest(TDigest source, RandomGenerator generator){
+		if(generator == null){
+			throw new NullPointerException();
+		}
+		this.compression = source.compression;
+		this.means = source.means.clone();
+		this.weights = source.weights.clone();
+		this.size = source.size;
+		this.spareMeans = new double[means.length];
+		this.spareWeights = new long[means.length];
+		this.buffer = source.buffer.clone();
+		this.buffered = source.buffered;
+		this.count = source.count;
+		this.mean = source.mean;
+		this.m2 = source.m2;
+		this.min = source.min;
+		this.max = source.max;
+		this.randomGenerator = generator;
+	}
+
+	/**
+	 * Adds a value to the sketch, in constant amortized time.
+	 *
+	 * @param x The value to add.
+	 * @throws IllegalArgumentException if <b>x</b> is not finite.
+	 */
+	public void add(double x){
+		if(!Double.isFinite(x)){
+			throw new IllegalArgumentException("x must be finite");
+		}
+		if(buffered == buffer.length){
+			flush();
+		}
+		buffer[buffered++] = x;
+		knotsValid = false;
+
+		count++;
+		double delta = x - mean;
+		mean += delta / count;
+		m2 += delta * (x - mean);
+		if(x < min){
+			min = x;
+		}
+		if(x > max){
+			max = x;
+		}
+	}
+
+	/**
+	 * Adds a value to the sketch. Same as {@link #add(double)}.
+	 */
+	@Override
+	public void accept(double x){
+		add(x);
+	}
+
+	/**
+	 * Merges another sketch into this one. Afterwards this sketch describes
+	 * the values added to either of them, with the compression of this
+	 * sketch. <b>other</b> is not modified.
+	 *
+	 * @param other The sketch to merge into this one.
+	 * @return This sketch.
+	 */
+	public TDigest merge(TDigest other){
+		if(other.count == 0){
+			return this;
+		}
+		TDigest source = new TDigest(other, other.randomGenerator);
+		source.flush();
+		flush();
+		compress(source.means, source.weights, source.size);
+		knotsValid = false;
+
+		//The pairwise formulas of Chan et al.
+		double na = count;
+		double nb = source.count;
+		double n = na + nb;
+		double delta = source.mean - mean;
+		m2 += source.m2 + delta * delta * na * nb / n;
+		mean += delta * nb / n;
+		count += source.count;
+		min = Math.min(min, source.min);
+		max = Math.max(max, source.max);
+		return this;
+	}
+
+	/**
+	 * Merges the buffered values into the centroids.
+	 */
+	private void flush(){
+		if(buffered == 0){
+			return;
+		}
+		Arrays.sort(buffer, 0, buffered);
+		compress(buffer, null, buffered);
+		buffered = 0;
+	}
+
+	/**
+	 * Merges a sorted list of weighted values into the centroids, combining
+	 * neighbours while they fit within the scale function.
+	 *
+	 * @param otherMeans The sorted values to merge.
+	 * @param otherWeights The weights of the values, or null if all are 1.
+	 * @param n The number of values to merge.
+	 */
+	private void compress(double[] otherMeans, long[] otherWeights, int n){
+		long total = 0;
+		for(int i = 0; i < size; i++){
+			total += weights[i];
+		}
+		if(otherWeights == null){
+			total += n;
+		} else {
+			for(int i = 0; i < n; i++){
+				total += otherWeights[i];
+			}
+		}
+
+		double[] outMeans = spareMeans;
+		long[] outWeights = spareWeights;
+		int out = 0;
+		double w = total;
+		//See maxQuantile.
+		double e = Math.exp(-(4 * Math.log(Math.max(1, w / compression)) + 24) / compression);
+		long before = 0;
+		double limit = 0;
+		double currentSum = 0;
+		long currentWeight = 0;
+
+		int i = 0;
+		int j = 0;
+		while(i < size || j < n){
+			double x;
+			long weight;
+			if(j == n || (i < size && means[i] <= otherMeans[j])){
+				x = means[i];
+				weight = weights[i++];
+			} else {
+				x = otherMeans[j];
+				weight = otherWeights == null ? 1 : otherWeights[j];
+				j++;
+			}
+
+			if(currentWeight + weight <= limit){
+				currentWeight += weight;
+				currentSum += x * weight;
+				continue;
+			}
+			if(currentWeight > 0){
+				if(out == outMeans.length){
+					outMeans = Arrays.copyOf(outMeans, 2 * out);
+					outWeights = Arrays.copyOf(outWeights, 2 * out);
+				}
+				outMeans[out] = currentSum / currentWeight;
+				outWeights[out++] = currentWeight;
+				before += currentWeight;
+			}
+			currentSum = x * weight;
+			currentWeight = weight;
+			limit = w * maxQuantile(before / w, e) - before;
+		}
+		if(currentWeight > 0){
+			if(out == outMeans.length){
+				outMeans = Arrays.copyOf(outMeans, out + 1);
+				outWeights = Arrays.copyOf(outWeights, out + 1);
+			}
+			outMeans[out] = currentSum / currentWeight;
+			outWeights[out++] = currentWeight;
+		}
+
+		spareMeans = means;
+		spareWeights = weights;
+		means = outMeans;
+		weights = outWeights;
+		size = out;
+		if(spareMeans.length < means.length){
+			spareMeans = new double[means.length];
+			spareWeights = new long[means.length];
+		}
+	}
+
+	/**
+	 * The largest quantile that a centroid starting at quantile q may reach.
+	 * A centroid may span at most 1 under both the scale function
+	 * k(q) = compression / (2 pi) * asin(2q - 1), which bounds the number of
+	 * centroids, and k(q) = compression / z * log(q / (1 - q)), which keeps
+	 * the tail centroids small relative to the tail; here e = exp(-z / compression).
+	 */
+	private double maxQuantile(double q, double e){
+		double k = Math.asin(2 * q - 1) + 2 * Math.PI / compression;
+		double arcsine = k >= Math.PI / 2 ? 1 : 0.5 * (1 + Math.sin(k));
+		return Math.min(arcsine, q / (q + (1 - q) * e));
+	}
+
+	/**
+	 * Compresses the sketch and builds the corners of its cumulative density.
+	 */
+	private void prepare(){
+		if(knotsValid){
+			return;
+		}
+		flush();
+		int n = size + 2;
+		if(knotValues == null || knotValues.length < n){
+			knotValues = new double[n];
+			knotProbabilities = new double[n];
+		}
+		double w = count;
+		knotValues[0] = min;
+		knotProbabilities[0] = 0;
+		long before = 0;
+		for(int i = 0; i < size; i++){
+			//Rounding must not move a mean outside of its neighbours.
+			knotValues[i + 1] = Math.min(max, Math.max(knotValues[i], means[i]));
+			knotProbabilities[i + 1] = (before + 0.5 * weights[i]) / w;
+			before += weights[i];
+		}
+		knotValues[n - 1] = max;
+		knotProbabilities[n - 1] = 1;
+		knots = n;
+		knotsValid = true;
+	}
+
+	/**
+	 * Gives the index of the last corner whose value is at most x, or
+	 * strictly less than x if <b>strict</b>, or -1 if there is none.
+	 */
+	private int searchValue(double x, boolean strict){
+		int lo = 0;
+		int hi = knots;
+		while(lo < hi){
+			int mid = (lo + hi) >>> 1;
+			double v = knotValues[mid];
+			if(v < x || (!strict && v == x)){
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo - 1;
+	}
+
+	private double cumulative(double x, boolean strict){
+		if(count == 0){
+			return Double.NaN;
+		}
+		prepare();
+		int j = searchValue(x, strict);
+		if(j < 0){
+			return 0;
+		} else if(j == knots - 1){
+			return 1;
+		}
+		double x0 = knotValues[j];
+		double p0 = knotProbabilities[j];
+		return p0 + (knotProbabilities[j + 1] - p0) * (x - x0) / (knotValues[j + 1] - x0);
+	}
+
+	/**
+	 * Gives the number of values added to the sketch.
+	 *
+	 * @return The number of values added.
+	 */
+	public long getCount(){
+		return count;
+	}
+
+	/**
+	 * Gives the compression of the sketch.
+	 *
+	 * @return The compression.
+	 */
+	public double getCompression(){
+		return compression;
+	}
+
+	/**
+	 * Gives the smallest value added.
+	 *
+	 * @return The minimum, or positive infinity if no value has been added.
+	 */
+	public double getMin(){
+		return min;
+	}
+
+	/**
+	 * Gives the largest value added.
+	 *
+	 * @return The maximum, or negative infinity if no value has been added.
+	 */
+	public double getMax(){
+		return max;
+	}
+
+	/**
+	 * Gives the number of centroids of the sketch, after merging the
+	 * buffered values.
+	 *
+	 * @return The number of centroids.
+	 */
+	public int size(){
+		flush();
+		return size;
+	}
+
+	/**
+	 * The exact mean of the values added, or NaN if the sketch is empty.
+	 */
+	@Override
+	public double expectedValue(){
+		return count == 0 ? Double.NaN : mean;
+	}
+
+	/**
+	 * The exact population variance of the values added, or NaN if the
+	 * sketch is empty.
+	 */
+	@Override
+	public double variance(){
+		return count == 0 ? Double.NaN : m2 / count;
+	}
+
+	@Override
+	public double probabilityDensityOf(double x){
+		if(count == 0){
+			return Double.NaN;
+		}
+		prepare();
+		int j = searchValue(x, false);
+		if(j < 0 || j == knots - 1){
+			return 0;
+		}
+		return (knotProbabilities[j + 1] - knotProbabilities[j]) /
+				(knotValues[j + 1] - knotValues[j]);
+	}
+
+	/**
+	 * The cumulative density of the sketch, or NaN if the sketch is empty.
+	 */
+	@Override
+	public double cumulativeDensityOf(double x){
+		return cumulative(x, false);
+	}
+
+	@Override
+	public double probabilityOf(double a, double b){
+		if(b < a){
+			return 0;
+		}
+		return cumulative(b, false) - cumulative(a, true);
+	}
+
+	/**
+	 * The quantile function of the sketch, found by a binary search over
+	 * the centroids.
+	 *
+	 * @throws IllegalStateException if the sketch is empty.
+	 */
+	@Override
+	public double quantile(double p){
+		AMath.checkProbability(p);
+		if(count == 0){
+			throw new IllegalStateException("The sketch is empty");
+		}
+		prepare();
+		return interpolateQuantile(p);
+	}
+
+	private double interpolateQuantile(double p){
+		int lo = 1;
+		int hi = knots - 1;
+		while(lo < hi){
+			int mid = (lo + hi) >>> 1;
+			if(knotProbabilities[mid] < p){
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		//knotProbabilities[lo - 1] < p <= knotProbabilities[lo], unless p is 0.
+		double p0 = knotProbabilities[lo - 1];
+		double p1 = knotProbabilities[lo];
+		double x0 = knotValues[lo - 1];
+		if(!(p1 > p0)){
+			return x0;
+		}
+		return Math.min(knotValues[lo], x0 + (knotValues[lo] - x0) * (p - p0) / (p1 - p0));
+	}
+
+	/**
+	 * @throws IllegalStateException if the sketch is empty.
+	 */
+	@Override
+	public double nextRandom(){
+		return quantile(randomGenerator.nextDouble());
+	}
+
+	/**
+	 * @throws IllegalStateException if the sketch is empty.
+	 */
+	@Override
+	public void nextRandoms(double[] out, int off, int len){
+		Objects.checkFromIndexSize(off, len, out.length);
+		if(count == 0){
+			throw new IllegalStateException("The sketch is empty");
+		}
+		prepare();
+		final RandomGenerator g = randomGenerator;
+		for(int i = off; i < off + len; i++){
+			out[i] = interpolateQuantile(g.nextDouble());
+		}
+	}
+
+	/**
+	 * Gives the sketch in a compact binary format, which can be read back by
+	 * {@link #fromByteArray(byte[])}. The format holds the exact moments and
+	 * the centroids, with the weights written as variable length integers,
+	 * in about 10 bytes per centroid.
+	 *
+	 * @return The serialized sketch.
+	 */
+	public byte[] toByteArray(){
+		flush();
+		ByteBuffer out = ByteBuffer.allocate(1 + 5 * Double.BYTES + 5 + size * (Double.BYTES + 10));
+		out.put(FORMAT_VERSION);
+		out.putDouble(compression);
+		out.putDouble(mean);
+		out.putDouble(m2);
+		out.putDouble(min);
+		out.putDouble(max);
+		putVarLong(out, size);
+		for(int i = 0; i < size; i++){
+			out.putDouble(means[i]);
+		}
+		for(int i = 0; i < size; i++){
+			putVarLong(out, weights[i]);
+		}
+		return Arrays.copyOf(out.array(), out.position());
+	}
+
+	/**
+	 * Reads a sketch written by {@link #toByteArray()}.
+	 *
+	 * @param bytes The serialized sketch.
+	 * @return The sketch.
+	 * @throws IllegalArgumentException if <b>bytes</b> is not a serialized sketch.
+	 */
+	public static TDigest fromByteArray(byte[] bytes){
+		return fromByteArray(bytes, new Random());
+	}
+
+	/**
+	 * Reads a sketch written by {@link #toByteArray()}.
+	 *
+	 * @param bytes The serialized sketch.
+	 * @param generator A random generator for generating random numbers of the sketch.
+	 * @return The sketch.
+	 * @throws IllegalArgumentException if <b>bytes</b> is not a serialized sketch.
+	 */
+	public static TDigest fromByteArray(byte[] bytes, RandomGenerator generator){
+		try{
+			ByteBuffer in = ByteBuffer.wrap(bytes);
+			if(in.get() != FORMAT_VERSION){
+				throw new IllegalArgumentException("Unknown format version");
+			}
+			TDigest digest = new TDigest(in.getDouble(), generator);
+			digest.mean = in.getDouble();
+			digest.m2 = in.getDouble();
+			digest.min = in.getDouble();
+			digest.max = in.getDouble();
+			long n = getVarLong(in);
+			if(n < 0 || n > in.remaining() / Double.BYTES){
+				throw new IllegalArgumentException("Invalid number of centroids");
+			}
+			int size = (int)n;
+			if(size > digest.means.length){
+				digest.means = new double[size];
+				digest.weights = new long[size];
+				digest.spareMeans = new double[size];
+				digest.spareWeights = new long[size];
+			}
+			for(int i = 0; i < size; i++){
+				digest.means[i] = in.getDouble();
+			}
+			for(int i = 0; i < size; i++){
+				digest.weights[i] = getVarLong(in);
+				if(digest.weights[i] <= 0 || (i > 0 && digest.means[i] < digest.means[i - 1])){
+					throw new IllegalArgumentException("Invalid centroid");
+				}
+				digest.count += digest.weights[i];
+			}
+			digest.size = size;
+			if(in.hasRemaining()){
+				throw new IllegalArgumentException("Invalid sketch");
+			}
+			return digest;
+		} catch(BufferUnderflowException e){
+			throw new IllegalArgumentException("The sketch is truncated", e);
+		}
+	}
+
+	private static void putVarLong(ByteBuffer out, long v){
+		while((v & ~0x7FL) != 0){
+			out.put((byte)((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+		out.put((byte)v);
+	}
+
+	private static long getVarLong(ByteBuffer in){
+		long v = 0;
+		for(int shift = 0; shift < 64; shift += 7){
+			byte b = in.get();
+			v |= (long)(b & 0x7F) << shift;
+			if(b >= 0){
+				return v;
+			}
+		}
+		throw new IllegalArgumentException("Invalid variable length integer");
+	}
+
+	/**
+	 * Gives a copy of this sketch that generates its random values with a
+	 * given random generator. The copy is independent of this sketch.
+	 *
+	 * @param generator The random generator of the copy.
+	 * @return A copy of this sketch using <b>generator</b>.
+	 */
+	@Override
+	public TDigest withGenerator(RandomGenerator generator){
+		return new TDigest(this, generator);
+	}
+
+	@Override
+	public TDigest split(){
+		return withGenerator(Randoms.split(randomGenerator));
+	}
+
+	@Override
+	public String toString(){
+		return "TDigest{compression=" + compression + ", count=" + count + "}";
+	}
+}
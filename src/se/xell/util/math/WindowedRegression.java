@@ -0,0 +1,132 @@
+package se.xell.util.math;
+
+/**
+ * A simple linear regression over the most recent points of a stream.
+ * The window holds at most a fixed number of points; when it is full
+ * adding a point evicts the oldest one. Both operations are done in
+ * constant amortized time.
+ * <br></br><br></br>
+ *
+ * Evicting a point subtracts it from the sums of the regression, so
+ * rounding errors would accumulate over a long stream. The sums are
+ * therefore recomputed from the points in the window after every
+ * <i>capacity</i> evictions, and as soon as an eviction cancels most of
+ * their digits, e.g. when an outlier leaves the window.
+ * <br></br><br></br>
+ *
+ * This class is not thread safe.
+ *
+ * @author Tobias Axell
+ */
+public class WindowedRegression {
+
+	/**
+	 * If an eviction shrinks a sum of squares below this fraction of its
+	 * previous value, more than 20 bits of it have cancelled.
+	 */
+	private static final double CANCELLATION = 0x1p-20;
+
+	private final double[] xs;
+	private final double[] ys;
+	private final RunningRegression regression = new RunningRegression();
+	private int head;
+	private int size;
+	private int evictions;
+
+	/**
+	 * Constructor for WindowedRegression.
+	 *
+	 * @param capacity The maximum number of points in the window.
+	 */
+	public WindowedRegression(int capacity){
+		if(capacity < 1){
+			throw new IllegalArgumentException("capacity must be greater than 0");
+		}
+		xs = new double[capacity];
+		ys = new double[capacity];
+	}
+
+	/**
+	 * Adds a point to the window, evicting the oldest point if the
+	 * window is full.
+	 *
+	 * @param x The x coordinate of the point.
+	 * @param y The y coordinate of the point.
+	 */
+	public void add(double x, double y){
+		boolean rebuild = false;
+		if(size == xs.length){
+			double sxx = regression.sxx();
+			double syy = regression.syy();
+			regression.remove(xs[head], ys[head]);
+			rebuild = ++evictions >= xs.length
+					|| regression.sxx() < sxx * CANCELLATION
+					|| regression.syy() < syy * CANCELLATION;
+		} else {
+			size++;
+		}
+		xs[head] = x;
+		ys[head] = y;
+		if(++head == xs.length){
+			head = 0;
+		}
+		if(rebuild){
+			rebuild();
+		} else {
+			regression.add(x, y);
+		}
+	}
+
+	/**
+	 * Recomputes the regression from the points in the window in O(n) time.
+	 * Only called when the window is full, so the oldest point is at head.
+	 */
+	private void rebuild(){
+		regression.clear();
+		for(int i = head; i < xs.length; i++){
+			regression.add(xs[i], ys[i]);
+		}
+		for(int i = 0; i < head; i++){
+			regression.add(xs[i], ys[i]);
+		}
+		evictions = 0;
+	}
+
+	/**
+	 * Gives the number of points currently in the window.
+	 *
+	 * @return The number of points in the window.
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Gives the maximum number of points in the window.
+	 *
+	 * @return The capacity of the window.
+	 */
+	public int capacity(){
+		return xs.length;
+	}
+
+	/**
+	 * Gives the regression of the points currently in the window. The
+	 * returned object is a copy, which is not updated as points are added
+	 * to the window.
+	 *
+	 * @return The regression of the points in the window.
+	 */
+	public RunningRegression regression(){
+		return new RunningRegression(regression);
+	}
+
+	/**
+	 * Gives the line fitting the points in the window as well as possible.
+	 *
+	 * @return A linear function fitted to the points in the window.
+	 */
+	public LinearFunction toLinearFunction(){
+		return regression.toLinearFunction();
+	}
+}